@@ -0,0 +1,122 @@
+package com.hyperativa.benchmark;
+
+import com.hyperativa.service.BatchRecordReader;
+import com.hyperativa.service.CardCreationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a whole in-memory batch file (header, card lines, trailer) and validates each card number,
+ * comparing {@link BatchRecordReader} with the former {@code BufferedReader}, {@code substring} and
+ * regex based code path, over generated files of 10k, 100k and 1M card lines. Hashing and persistence
+ * are left out so only parsing is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchRecordParsingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int records;
+
+    private byte[] file;
+
+    @Setup
+    public void setUp() {
+        StringBuilder content = new StringBuilder(records * 52 + 128);
+        content.append(String.format("%-29s%s%s%06d%n", "DESAFIO-HYPERATIVA", "20180524", "LOTE0001", records));
+        for (int i = 0; i < records; i++) {
+            content.append(String.format("C%-6d%-19s%n", i % 1000, "4456897" + String.format("%09d", i)));
+        }
+        content.append(String.format("%-8s%06d%n", "LOTE", records));
+        file = content.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public void recordReader(Blackhole blackhole) throws IOException {
+        BatchRecordReader reader = new BatchRecordReader(new ByteArrayInputStream(file));
+        reader.nextLine();
+        blackhole.consume(reader.parseHeader());
+
+        while (reader.nextLine()) {
+            if (reader.isBlank()) {
+                continue;
+            }
+            if (reader.isTrailer()) {
+                blackhole.consume(reader.parseTrailer());
+                continue;
+            }
+            String cardNumber = reader.cardNumber();
+            blackhole.consume(cardNumber != null && CardCreationService.isCardNumber(cardNumber));
+        }
+    }
+
+    @Benchmark
+    public void substringAndRegex(Blackhole blackhole) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(file)));
+        blackhole.consume(legacyParseHeader(reader.readLine()));
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (legacyIsTrailer(line)) {
+                blackhole.consume(legacyParseTrailer(line));
+                continue;
+            }
+            String cardNumber = legacyExtractCardNumber(line);
+            blackhole.consume(cardNumber != null && cardNumber.matches("\\d{13,19}"));
+        }
+    }
+
+    private static int legacyParseHeader(String headerLine) {
+        String nome = headerLine.substring(0, 29).trim();
+        String data = headerLine.substring(29, 37).trim();
+        String lote = headerLine.substring(37, 45).trim();
+        String qtyStr = headerLine.substring(45, 51).trim();
+
+        if (nome.isEmpty() || data.isEmpty() || !data.matches("\\d{8}") || lote.isEmpty()) {
+            throw new IllegalArgumentException("Invalid header");
+        }
+        return Integer.parseInt(qtyStr);
+    }
+
+    private static boolean legacyIsTrailer(String line) {
+        return line.length() >= 8 && line.substring(0, 4).trim().equalsIgnoreCase("LOTE");
+    }
+
+    private static int legacyParseTrailer(String trailerLine) {
+        String lote = trailerLine.substring(0, 8).trim();
+        String qtyStr = trailerLine.substring(8, 14).trim();
+        return lote.equalsIgnoreCase("LOTE") ? Integer.parseInt(qtyStr) : -1;
+    }
+
+    private static String legacyExtractCardNumber(String line) {
+        if (line.length() < 8 || !line.substring(0, 1).trim().equalsIgnoreCase("C")) {
+            return null;
+        }
+        String cardNumber = line.substring(7, Math.min(26, line.length())).trim();
+        return cardNumber.isEmpty() ? null : cardNumber;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hyperativa.benchmark;
+
+import com.hyperativa.service.BlindIndexServiceImpl;
+import com.hyperativa.service.CardBloomFilter;
+import com.hyperativa.service.CardCreationService;
+import com.hyperativa.service.CardLookupCache;
+import com.hyperativa.service.EncryptionServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CardCreationService#hashCardNumber}, which validates a card number and computes its
+ * blind index, and the validation step on its own ({@link CardCreationService#isCardNumber}) against the
+ * former {@code String.matches} check.
+ * The repository is not touched on this path, so none is wired.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardValidationBenchmark {
+
+    private static final String VALID_CARD_NUMBER = "4456897999999999";
+    private static final String INVALID_CARD_NUMBER = "4456897999A99999";
+
+    // Non-final so the JIT cannot fold the validation benchmarks into constants
+    private String cardNumber = VALID_CARD_NUMBER;
+    private CardCreationService cardCreationService;
+
+    @Setup
+    public void setUp() {
+        EncryptionServiceImpl encryptionService = new EncryptionServiceImpl();
+        ReflectionTestUtils.setField(encryptionService, "keys", List.of("1:daT3gN6j6Bo7jZV+5NFx4Aj4oQbnUTPQon5qbawCtOs="));
+        ReflectionTestUtils.setField(encryptionService, "encryptionKey", "");
+        ReflectionTestUtils.setField(encryptionService, "activeVersion", 1);
+        encryptionService.init();
+
+        BlindIndexServiceImpl blindIndexService = new BlindIndexServiceImpl();
+        ReflectionTestUtils.setField(blindIndexService, "indexKey", "Zk3pR8vT1wQ6yN0sL5mH2jC9xB4dF7gA0eK3uP6oI1s=");
+        blindIndexService.init();
+
+        cardCreationService = new CardCreationService(null, null, encryptionService, blindIndexService,
+                new CardLookupCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 1),
+                new CardBloomFilter(null, false, 1, 0.01));
+    }
+
+    @Benchmark
+    public String validateAndHash() {
+        return cardCreationService.hashCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public boolean rejectInvalid() {
+        try {
+            cardCreationService.hashCardNumber(INVALID_CARD_NUMBER);
+            return false;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    @Benchmark
+    public boolean digitLoopValidation() {
+        return CardCreationService.isCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public boolean regexValidation() {
+        return cardNumber.matches("\\d{13,19}");
+    }
+}
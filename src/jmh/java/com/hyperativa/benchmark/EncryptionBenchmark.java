@@ -0,0 +1,112 @@
+package com.hyperativa.benchmark;
+
+import com.hyperativa.service.EncryptionServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pooled AES-GCM {@link EncryptionServiceImpl} against the same AES-GCM envelope built with a
+ * new {@code Cipher} on every call, so the difference is the provider lookup the pool saves.
+ * {@code legacyEcbDecrypt} is not part of that comparison: it measures the pooled AES/ECB decryption of
+ * cards stored before key versioning, which only runs until they are re-encrypted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class EncryptionBenchmark {
+
+    private static final String KEY = "u8Fh9d0xN2sV7l4Wc1Gq3p8Tz9Jr6e5Hq2Lw8d1Bv4A=";
+    private static final int KEY_VERSION = 1;
+    private static final String VERSIONED_KEY = "daT3gN6j6Bo7jZV+5NFx4Aj4oQbnUTPQon5qbawCtOs=";
+    private static final String CARD_NUMBER = "4456897999999999";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int HEADER_LENGTH = 1 + NONCE_LENGTH;
+
+    private EncryptionServiceImpl encryptionService;
+    private SecretKey gcmKey;
+    private SecureRandom nonces;
+    private byte[] encryptedCardNumber;
+    private String legacyEncryptedCardNumber;
+
+    @Setup
+    public void setUp() throws Exception {
+        encryptionService = new EncryptionServiceImpl();
+        ReflectionTestUtils.setField(encryptionService, "keys", List.of(KEY_VERSION + ":" + VERSIONED_KEY));
+        ReflectionTestUtils.setField(encryptionService, "activeVersion", KEY_VERSION);
+        ReflectionTestUtils.setField(encryptionService, "encryptionKey", KEY);
+        encryptionService.init();
+        gcmKey = new SecretKeySpec(Base64.getDecoder().decode(VERSIONED_KEY), "AES");
+        nonces = SecureRandom.getInstance("DRBG");
+        encryptedCardNumber = encryptionService.encrypt(CARD_NUMBER);
+
+        Cipher ecb = Cipher.getInstance("AES");
+        ecb.init(Cipher.ENCRYPT_MODE, EncryptionServiceImpl.legacyKey(KEY));
+        legacyEncryptedCardNumber = Base64.getEncoder().encodeToString(ecb.doFinal(CARD_NUMBER.getBytes()));
+    }
+
+    @Benchmark
+    public byte[] pooledEncrypt() {
+        return encryptionService.encrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String pooledDecrypt() {
+        return encryptionService.decrypt(encryptedCardNumber);
+    }
+
+    @Benchmark
+    public byte[] perCallEncrypt() throws Exception {
+        byte[] plainBytes = CARD_NUMBER.getBytes(StandardCharsets.UTF_8);
+        byte[] envelope = new byte[HEADER_LENGTH + plainBytes.length + TAG_BITS / 8];
+        byte[] nonce = new byte[NONCE_LENGTH];
+        nonces.nextBytes(nonce);
+        envelope[0] = (byte) KEY_VERSION;
+        System.arraycopy(nonce, 0, envelope, 1, NONCE_LENGTH);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, gcmKey, new GCMParameterSpec(TAG_BITS, nonce));
+        cipher.updateAAD(envelope, 0, 1);
+        cipher.doFinal(plainBytes, 0, plainBytes.length, envelope, HEADER_LENGTH);
+        return envelope;
+    }
+
+    @Benchmark
+    public String perCallDecrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, gcmKey, new GCMParameterSpec(TAG_BITS, encryptedCardNumber, 1, NONCE_LENGTH));
+        cipher.updateAAD(encryptedCardNumber, 0, 1);
+        byte[] plainBytes = cipher.doFinal(encryptedCardNumber, HEADER_LENGTH,
+                encryptedCardNumber.length - HEADER_LENGTH);
+        return new String(plainBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String legacyEcbDecrypt() {
+        return encryptionService.decryptText(legacyEncryptedCardNumber, null);
+    }
+}
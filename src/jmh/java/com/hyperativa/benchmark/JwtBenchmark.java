@@ -0,0 +1,74 @@
+package com.hyperativa.benchmark;
+
+import com.hyperativa.dto.JwtClaims;
+import com.hyperativa.model.User;
+import com.hyperativa.service.JwtServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation and verification in {@link JwtServiceImpl}, with the verified-claims cache and with
+ * the cache turned off ({@code app.jwt.cache.max-size=0}), which pays the full HS256 check every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtBenchmark {
+
+    private static final String SECRET = "Q2fT0qS3xwZ2RLTf6o3nE0uO5ij9k5z7lFqWbYtV0mA=";
+
+    private JwtServiceImpl cachingService;
+    private JwtServiceImpl uncachedService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingService = newService(10_000);
+        uncachedService = newService(0);
+
+        user = new User(1L, "testuser", "password", true);
+        token = cachingService.generateToken(user, user.getId());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingService.generateToken(user, user.getId());
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> parseCached() {
+        return cachingService.parseToken(token);
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> parseUncached() {
+        return uncachedService.parseToken(token);
+    }
+
+    private static JwtServiceImpl newService(long cacheMaxSize) {
+        JwtServiceImpl service = new JwtServiceImpl();
+        ReflectionTestUtils.setField(service, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(service, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(service, "cacheMaxSize", cacheMaxSize);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,66 @@
+package com.hyperativa.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Produces unique card numbers and batch files in the DESAFIO fixed-width layout (header, {@code C} card
+ * lines, {@code LOTE} trailer), the same shape as the sample file of the challenge.
+ * <p>
+ * Card numbers are 16-digit, Luhn-valid and never repeat within a generator, so every created or
+ * imported card is a new registration. Thread-safe.
+ */
+final class BatchFileGenerator {
+
+    private static final String ISSUER_PREFIX = "445689";
+    private static final DateTimeFormatter HEADER_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    String nextCardNumber() {
+        String body = ISSUER_PREFIX + String.format("%09d", sequence.incrementAndGet());
+        return body + luhnCheckDigit(body);
+    }
+
+    /**
+     * @return a card number of this issuer that is never handed out by {@link #nextCardNumber()}
+     */
+    String unknownCardNumber(long n) {
+        String body = "5" + ISSUER_PREFIX.substring(1) + String.format("%09d", n % 1_000_000_000L);
+        return body + luhnCheckDigit(body);
+    }
+
+    byte[] nextBatchFile(int records) {
+        long batch = batches.incrementAndGet();
+        StringBuilder content = new StringBuilder(records * 28 + 64);
+
+        content.append(String.format("%-29s%s%-8s%06d%n", "DESAFIO-HYPERATIVA",
+                LocalDate.now().format(HEADER_DATE), String.format("LOTE%04d", batch % 10_000), records));
+        for (int i = 1; i <= records; i++) {
+            content.append(String.format("C%-6d%-19s%n", i, nextCardNumber()));
+        }
+        content.append(String.format("%-8s%06d%n", "LOTE", records));
+
+        return content.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int luhnCheckDigit(String body) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = body.length() - 1; i >= 0; i--) {
+            int digit = body.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,391 @@
+package com.hyperativa.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hyperativa.CardApiApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Boots the API in-process against the embedded H2 database ({@code loadtest} profile) and drives it
+ * with concurrent HTTP clients, one endpoint at a time: login, card creation, card lookup and batch
+ * import of generated DESAFIO files, as multipart uploads ({@code import}) or gzip-compressed request
+ * bodies ({@code import-stream}).
+ * <p>
+ * The {@code lookup-under-login} phase repeats the lookups while the same number of clients keep logging in,
+ * to show how password hashing competes with the card endpoints.
+ * <p>
+ * Each phase runs a warmup window followed by a measured window. Throughput and exact p50/p95/p99
+ * latencies come from the client side. Allocation is the JVM-wide allocated bytes over the measured
+ * window minus what the client threads allocated themselves; the JDK HTTP client's selector thread is
+ * still included, so treat it as a close upper bound of what the server allocated.
+ * <p>
+ * Settings are system properties ({@code loadtest.clients}, {@code loadtest.import.clients},
+ * {@code loadtest.import.records}, {@code loadtest.warmup-seconds}, {@code loadtest.duration-seconds},
+ * {@code loadtest.phases}, {@code loadtest.pinned-threshold-ms}, {@code loadtest.result-file}); program
+ * arguments are passed to Spring, so any application property can be overridden for a run, e.g.
+ * {@code --spring.threads.virtual.enabled=true}. Virtual threads pinned for longer than the threshold
+ * are counted per phase, see {@link PinnedThreadMonitor}.
+ */
+public final class LoadTestRunner {
+
+    private static final String USERNAME = "testuser";
+    private static final String PASSWORD = "password123";
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BatchFileGenerator generator = new BatchFileGenerator();
+    private final List<String> createdCards = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong unknownCards = new AtomicLong();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final String baseUrl;
+    private final int clients = Integer.getInteger("loadtest.clients", 32);
+    private final int importClients = Integer.getInteger("loadtest.import.clients", 4);
+    private final int importRecords = Integer.getInteger("loadtest.import.records", 1000);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 5);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 20);
+
+    private final Map<String, Instant[]> measuredWindows = new LinkedHashMap<>();
+    private String token;
+
+    private LoadTestRunner(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Maven hands loadtest.app-args over as a single argument
+        String[] appArgs = Arrays.stream(args)
+                .flatMap(arg -> Arrays.stream(arg.trim().split("\\s+")))
+                .filter(arg -> !arg.isBlank())
+                .toArray(String[]::new);
+        List<String> phases = List.of(System.getProperty("loadtest.phases",
+                "login,create,lookup,import,import-stream").split(","));
+        Path resultFile = Path.of(System.getProperty("loadtest.result-file", "target/loadtest-result.json"));
+
+        SpringApplication application = new SpringApplication(CardApiApplication.class);
+        application.setAdditionalProfiles("loadtest");
+
+        try (ConfigurableApplicationContext context = application.run(appArgs)) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            LoadTestRunner runner = new LoadTestRunner("http://localhost:" + port);
+            runner.token = runner.login();
+            PinnedThreadMonitor pinnedThreads = new PinnedThreadMonitor(
+                    Duration.ofMillis(Integer.getInteger("loadtest.pinned-threshold-ms", 20)));
+
+            List<PhaseResult> results = new ArrayList<>();
+            for (String phase : phases) {
+                results.add(runner.run(phase.trim()));
+            }
+
+            List<PinnedThreadMonitor.PinnedEvent> pinned = pinnedThreads.stop();
+            runner.report(runner.withPinning(results, pinned), pinned, appArgs, resultFile);
+        }
+    }
+
+    private PhaseResult run(String phase) throws Exception {
+        Call login = n -> post("/api/auth/login",
+                json(Map.of("username", USERNAME, "password", PASSWORD)), false).statusCode();
+        // Unknown cards are answered with 404, which is the expected outcome for half of the lookups
+        Call lookup = n -> {
+            HttpResponse<byte[]> response = get("/api/cards?cardNumber="
+                    + URLEncoder.encode(lookupNumber(n), StandardCharsets.US_ASCII));
+            return response.statusCode() == 404 ? 200 : response.statusCode();
+        };
+
+        return switch (phase) {
+            case "login" -> measure("POST /api/auth/login", clients, 0, login);
+            case "create" -> measure("POST /api/cards", clients, 0, n -> {
+                String cardNumber = generator.nextCardNumber();
+                HttpResponse<byte[]> response = post("/api/cards", json(Map.of("cardNumber", cardNumber)), true);
+                if (response.statusCode() / 100 == 2) {
+                    createdCards.add(cardNumber);
+                }
+                return response.statusCode();
+            });
+            case "lookup" -> measure("GET /api/cards", clients, 0, lookup);
+            case "lookup-under-login" -> measureUnderLoad("GET /api/cards +login", lookup, login);
+            case "import" -> measure("POST /api/cards/import", importClients, importRecords,
+                    n -> postFile("/api/cards/import", generator.nextBatchFile(importRecords)).statusCode());
+            case "import-stream" -> measure("POST /api/cards/import/stream", importClients, importRecords,
+                    n -> postGzip("/api/cards/import/stream", generator.nextBatchFile(importRecords)).statusCode());
+            default -> throw new IllegalArgumentException("Unknown load-test phase: " + phase);
+        };
+    }
+
+    // Alternates between a card created earlier in the run and one that was never registered
+    private String lookupNumber(long n) {
+        if (n % 2 == 0 && !createdCards.isEmpty()) {
+            return createdCards.get(ThreadLocalRandom.current().nextInt(createdCards.size()));
+        }
+        return generator.unknownCardNumber(unknownCards.incrementAndGet());
+    }
+
+    /**
+     * Measures {@code call} while as many clients keep sending {@code background} requests for the whole
+     * warmup and measured windows. Allocation then includes the background traffic.
+     */
+    private PhaseResult measureUnderLoad(String endpoint, Call call, Call background) throws Exception {
+        ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Window> load = loadExecutor.submit(() -> drive(clients, warmupSeconds + durationSeconds, background));
+            PhaseResult result = measure(endpoint, clients, 0, call);
+
+            List<LatencyRecorder> recorders = load.get().recorders();
+            System.out.printf("  background load: %d requests, %d not successful%n",
+                    recorders.stream().mapToLong(LatencyRecorder::size).sum(),
+                    recorders.stream().mapToLong(LatencyRecorder::errors).sum());
+            return result;
+        } finally {
+            loadExecutor.shutdown();
+        }
+    }
+
+    private PhaseResult measure(String endpoint, int clientCount, int recordsPerRequest, Call call)
+            throws Exception {
+        System.out.printf("%s: %d clients, %ds warmup, %ds measured%n", endpoint, clientCount, warmupSeconds,
+                durationSeconds);
+        drive(clientCount, warmupSeconds, call);
+
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        Instant from = Instant.now();
+        long started = System.nanoTime();
+        Window window = drive(clientCount, durationSeconds, call);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        measuredWindows.put(endpoint, new Instant[] {from, Instant.now()});
+        long serverAllocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore - window.clientAllocated();
+
+        long[] latencies = LatencyRecorder.sortedMerge(window.recorders());
+        long errors = window.recorders().stream().mapToLong(LatencyRecorder::errors).sum();
+        long requests = latencies.length;
+
+        return new PhaseResult(endpoint, clientCount, requests, errors, seconds, requests / seconds,
+                recordsPerRequest > 0 ? (requests - errors) * recordsPerRequest / seconds : null,
+                millis(LatencyRecorder.percentile(latencies, 50)),
+                millis(LatencyRecorder.percentile(latencies, 95)),
+                millis(LatencyRecorder.percentile(latencies, 99)),
+                millis(requests > 0 ? latencies[latencies.length - 1] : 0),
+                serverAllocated / seconds / (1024 * 1024),
+                requests > 0 ? serverAllocated / (double) requests / 1024 : 0, 0, 0);
+    }
+
+    private List<PhaseResult> withPinning(List<PhaseResult> results, List<PinnedThreadMonitor.PinnedEvent> pinned) {
+        List<PhaseResult> merged = new ArrayList<>();
+        for (PhaseResult result : results) {
+            Instant[] window = measuredWindows.get(result.endpoint());
+            List<PinnedThreadMonitor.PinnedEvent> inWindow = pinned.stream()
+                    .filter(event -> event.within(window[0], window[1]))
+                    .toList();
+            double pinnedMs = inWindow.stream().mapToLong(event -> event.duration().toNanos()).sum() / 1e6;
+            merged.add(result.withPinning(inWindow.size(), pinnedMs));
+        }
+        return merged;
+    }
+
+    private Window drive(int clientCount, int seconds, Call call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clientCount);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong sequence = new AtomicLong();
+        AtomicLong clientAllocated = new AtomicLong();
+        List<Future<LatencyRecorder>> futures = new ArrayList<>();
+
+        for (int i = 0; i < clientCount; i++) {
+            futures.add(executor.submit(() -> {
+                LatencyRecorder recorder = new LatencyRecorder();
+                start.await();
+                long allocated = threads.getCurrentThreadAllocatedBytes();
+                long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+                while (System.nanoTime() < deadline) {
+                    long n = sequence.getAndIncrement();
+                    long requestStarted = System.nanoTime();
+                    boolean success;
+                    try {
+                        success = call.execute(n) / 100 == 2;
+                    } catch (IOException e) {
+                        success = false;
+                    }
+                    recorder.record(System.nanoTime() - requestStarted, success);
+                }
+
+                clientAllocated.addAndGet(threads.getCurrentThreadAllocatedBytes() - allocated);
+                return recorder;
+            }));
+        }
+
+        start.countDown();
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        for (Future<LatencyRecorder> future : futures) {
+            recorders.add(future.get());
+        }
+        executor.shutdown();
+        return new Window(recorders, clientAllocated.get());
+    }
+
+    private String login() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = post("/api/auth/login",
+                json(Map.of("username", USERNAME, "password", PASSWORD)), false);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.path("data").path("token").asText();
+    }
+
+    private HttpResponse<byte[]> post(String path, byte[] body, boolean authenticated)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (authenticated) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<byte[]> postFile(String path, byte[] file) throws IOException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(file.length + 256);
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"DESAFIO-HYPERATIVA.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(file);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<byte[]> postGzip(String path, byte[] file) throws IOException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(file.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(body)) {
+            gzip.write(file);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "text/plain")
+                .header("Content-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private byte[] json(Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    private void report(List<PhaseResult> results, List<PinnedThreadMonitor.PinnedEvent> pinned, String[] appArgs,
+                        Path resultFile) throws IOException {
+        System.out.println();
+        System.out.printf("%-30s %7s %9s %7s %9s %9s %8s %8s %8s %8s %11s %12s %7s%n", "endpoint", "clients",
+                "requests", "errors", "req/s", "cards/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "alloc MB/s",
+                "alloc KB/req", "pinned");
+        for (PhaseResult result : results) {
+            System.out.printf("%-30s %7d %9d %7d %9.1f %9s %8.2f %8.2f %8.2f %8.2f %11.1f %12.1f %7d%n",
+                    result.endpoint(), result.clients(), result.requests(), result.errors(), result.throughput(),
+                    result.recordsPerSecond() != null ? String.format("%.0f", result.recordsPerSecond()) : "-",
+                    result.p50Ms(), result.p95Ms(), result.p99Ms(), result.maxMs(), result.allocatedMbPerSecond(),
+                    result.allocatedKbPerRequest(), result.pinnedEvents());
+        }
+
+        Map<String, Long> pinnedSites = pinned.stream().collect(Collectors.groupingBy(
+                PinnedThreadMonitor.PinnedEvent::site, Collectors.counting()));
+        if (!pinnedSites.isEmpty()) {
+            System.out.println();
+            System.out.println("Virtual threads pinned while blocked at:");
+            pinnedSites.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(10)
+                    .forEach(site -> System.out.printf("%7d  %s%n", site.getValue(), site.getKey()));
+        }
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("javaVersion", Runtime.version().toString());
+        document.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        document.put("applicationArguments", appArgs);
+        document.put("warmupSeconds", warmupSeconds);
+        document.put("durationSeconds", durationSeconds);
+        document.put("importRecords", importRecords);
+        document.put("results", results);
+        document.put("pinnedSites", pinnedSites);
+
+        if (resultFile.getParent() != null) {
+            Files.createDirectories(resultFile.getParent());
+        }
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultFile.toFile(), document);
+        System.out.println();
+        System.out.println("Results written to " + resultFile.toAbsolutePath());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * One request of a phase, returning its HTTP status; any 2xx counts as a success.
+     */
+    @FunctionalInterface
+    private interface Call {
+        int execute(long n) throws IOException, InterruptedException;
+    }
+
+    private record Window(List<LatencyRecorder> recorders, long clientAllocated) {
+    }
+
+    record PhaseResult(String endpoint, int clients, long requests, long errors, double seconds,
+                       double throughput, Double recordsPerSecond, double p50Ms, double p95Ms, double p99Ms,
+                       double maxMs, double allocatedMbPerSecond, double allocatedKbPerRequest,
+                       long pinnedEvents, double pinnedMs) {
+
+        PhaseResult withPinning(long events, double millis) {
+            return new PhaseResult(endpoint, clients, requests, errors, seconds, throughput, recordsPerSecond,
+                    p50Ms, p95Ms, p99Ms, maxMs, allocatedMbPerSecond, allocatedKbPerRequest, events, millis);
+        }
+    }
+}
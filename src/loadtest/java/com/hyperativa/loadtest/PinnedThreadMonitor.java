@@ -0,0 +1,64 @@
+package com.hyperativa.loadtest;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in-process, i.e. a virtual thread that blocked
+ * while holding a monitor (or inside a native frame) and kept its carrier thread for longer than the
+ * threshold. Each event is reduced to the innermost non-JDK frame, which is where the library blocked.
+ * Only virtual-thread runs produce events.
+ */
+final class PinnedThreadMonitor {
+
+    private final RecordingStream stream = new RecordingStream();
+    private final List<PinnedEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+    PinnedThreadMonitor(Duration threshold) {
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", event ->
+                events.add(new PinnedEvent(event.getStartTime(), event.getDuration(), site(event))));
+        stream.startAsync();
+    }
+
+    /**
+     * Flushes pending events and stops recording.
+     *
+     * @return every event seen since the monitor was created
+     */
+    List<PinnedEvent> stop() {
+        stream.stop();
+        stream.close();
+        return List.copyOf(events);
+    }
+
+    private static String site(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return frames.isEmpty() ? "unknown"
+                : frames.get(0).getMethod().getType().getName() + "." + frames.get(0).getMethod().getName();
+    }
+
+    record PinnedEvent(Instant start, Duration duration, String site) {
+
+        boolean within(Instant from, Instant to) {
+            return !start.isBefore(from) && start.isBefore(to);
+        }
+    }
+}
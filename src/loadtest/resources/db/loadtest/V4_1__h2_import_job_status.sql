@@ -0,0 +1,2 @@
+-- H2 only: Hibernate maps enums to VARCHAR on H2 but to a native ENUM on MySQL, which V4 creates
+ALTER TABLE import_jobs ALTER COLUMN status VARCHAR(16) NOT NULL;
@@ -0,0 +1,47 @@
+package com.hyperativa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class BatchImportConfig {
+
+    /**
+     * Workers for parallel batch imports. The queue is unbounded, but each import caps its own chunks
+     * in flight, so memory stays proportional to workers x chunk size.
+     * <p>
+     * In virtual-thread mode every chunk gets its own virtual thread instead. Parallelism is still bounded
+     * by the chunks in flight per import and by {@code max-db-concurrency} for the database writes, and
+     * the CPU-bound hashing and encryption run on the carrier pool, which is sized to the processors.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchImportExecutor(@Value("${app.batch-import.parallel.workers:0}") int workers,
+                                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("batch-import-", 0).factory());
+        }
+
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("batch-import-"));
+    }
+
+    /**
+     * Runs asynchronous import jobs. Queued jobs are also recorded in the database, so the in-memory
+     * queue can be lost on shutdown without losing work.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService importJobExecutor(@Value("${app.batch-import.jobs.concurrency:2}") int concurrency) {
+        int threads = Math.max(1, concurrency);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("import-job-"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.hyperativa.config.migration;
+
+import com.hyperativa.service.contract.BlindIndexService;
+import com.hyperativa.service.contract.EncryptionService;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills {@code card_hash} for cards stored before the blind index existed, so V2.2 can make it NOT NULL.
+ * <p>
+ * Needs the application's keys, which is why it is a Spring bean rather than SQL: the card numbers of
+ * these rows are still under the pre-versioning key. Rows are walked by id in chunks, each committed on
+ * its own. The old check-then-insert could store the same card twice for a user; such duplicates were
+ * never returned by lookups, which failed on them. The oldest card is kept and later copies are deleted,
+ * their card ids logged. A card number that cannot be decrypted fails the migration rather than losing
+ * the card.
+ */
+@Slf4j
+@Component
+public class V2_1__BackfillCardHashes extends BaseJavaMigration {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String SELECT_CHUNK_SQL = "SELECT id, user_id, card_id, card_number_encrypted FROM cards "
+            + "WHERE id > ? AND card_hash IS NULL ORDER BY id LIMIT " + CHUNK_SIZE;
+    private static final String UPDATE_HASH_SQL = "UPDATE cards SET card_hash = ? WHERE id = ?";
+    private static final String FIND_HASH_SQL = "SELECT card_id FROM cards WHERE user_id = ? AND card_hash = ?";
+    private static final String DELETE_SQL = "DELETE FROM cards WHERE id = ?";
+
+    private final EncryptionService encryptionService;
+    private final BlindIndexService blindIndexService;
+
+    public V2_1__BackfillCardHashes(EncryptionService encryptionService, BlindIndexService blindIndexService) {
+        this.encryptionService = encryptionService;
+        this.blindIndexService = blindIndexService;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            long lastId = 0;
+            int indexed = 0;
+            int removed = 0;
+            while (true) {
+                List<HashedCard> chunk = readChunk(connection, lastId);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1).id();
+                removed += writeChunk(connection, chunk);
+                indexed += chunk.size();
+            }
+            if (indexed > 0) {
+                log.info("Card hash backfill completed: {} cards indexed, {} duplicates removed", indexed - removed, removed);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private List<HashedCard> readChunk(Connection connection, long afterId) throws SQLException {
+        List<HashedCard> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (PreparedStatement select = connection.prepareStatement(SELECT_CHUNK_SQL)) {
+            select.setLong(1, afterId);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    long id = rows.getLong(1);
+                    String cardNumber;
+                    try {
+                        cardNumber = encryptionService.decryptText(rows.getString(4), null);
+                    } catch (Exception e) {
+                        throw new FlywayException("Unable to decrypt the card number of card id " + id
+                                + "; fix or remove the row and run the migration again", e);
+                    }
+                    chunk.add(new HashedCard(id, rows.getLong(2), rows.getString(3), blindIndexService.hash(cardNumber)));
+                }
+            }
+        }
+        return chunk;
+    }
+
+    // Returns the number of duplicates deleted
+    private int writeChunk(Connection connection, List<HashedCard> chunk) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_HASH_SQL)) {
+            for (HashedCard card : chunk) {
+                update.setString(1, card.hash());
+                update.setLong(2, card.id());
+                update.addBatch();
+            }
+            update.executeBatch();
+            connection.commit();
+            return 0;
+        } catch (BatchUpdateException e) {
+            // The chunk holds a card already stored for the same user; redo it row by row
+            connection.rollback();
+        }
+
+        int removed = 0;
+        try (PreparedStatement find = connection.prepareStatement(FIND_HASH_SQL);
+             PreparedStatement update = connection.prepareStatement(UPDATE_HASH_SQL);
+             PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+            for (HashedCard card : chunk) {
+                find.setLong(1, card.userId());
+                find.setString(2, card.hash());
+                try (ResultSet kept = find.executeQuery()) {
+                    if (kept.next()) {
+                        log.warn("Removing card id {}: same card number as card id {} of user {}",
+                                card.cardId(), kept.getString(1), card.userId());
+                        delete.setLong(1, card.id());
+                        delete.executeUpdate();
+                        removed++;
+                        continue;
+                    }
+                }
+                update.setString(1, card.hash());
+                update.setLong(2, card.id());
+                update.executeUpdate();
+            }
+        }
+        connection.commit();
+        return removed;
+    }
+
+    private record HashedCard(long id, long userId, String cardId, String hash) {
+    }
+}
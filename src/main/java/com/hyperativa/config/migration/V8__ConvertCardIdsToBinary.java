@@ -0,0 +1,140 @@
+package com.hyperativa.config.migration;
+
+import com.hyperativa.model.UuidV7;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Changes {@code cards.card_id} from a UUID string to {@code BINARY(16)}, keeping every existing id.
+ * <p>
+ * The binary form is added as a new column, filled by id in chunks, each committed on its own, and then
+ * replaces the string column. The column changes rebuild the table but stay online in MySQL. The
+ * migration runs outside a transaction, as MySQL commits DDL implicitly anyway, and each step checks the
+ * current schema first: after an interruption, {@code flyway repair} and the next start continue where it
+ * stopped.
+ * <p>
+ * Instances of the previous version may still be writing cards during the first copy pass. The string
+ * column is then renamed to {@code card_id_text}, after which their inserts fail instead of adding rows the
+ * copy would miss, and a second pass copies the ids of anything inserted in the meantime. Stop those
+ * instances before deploying to avoid the failed requests.
+ */
+@Slf4j
+@Component
+public class V8__ConvertCardIdsToBinary extends BaseJavaMigration {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String ADD_BINARY_ID_SQL = "ALTER TABLE cards ADD COLUMN card_id_bin BINARY(16) NULL";
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT id, %s FROM cards WHERE id > ? AND card_id_bin IS NULL ORDER BY id LIMIT " + CHUNK_SIZE;
+    private static final String COPY_ID_SQL = "UPDATE cards SET card_id_bin = ? WHERE id = ?";
+    private static final String RENAME_TEXT_ID_SQL =
+            "ALTER TABLE cards CHANGE COLUMN card_id card_id_text VARCHAR(255) NOT NULL";
+    private static final String DROP_TEXT_ID_SQL = "ALTER TABLE cards DROP COLUMN card_id_text";
+    private static final String RENAME_BINARY_ID_SQL =
+            "ALTER TABLE cards CHANGE COLUMN card_id_bin card_id BINARY(16) NOT NULL";
+    private static final String ADD_UNIQUE_KEY_SQL = "ALTER TABLE cards ADD CONSTRAINT uk_card_id UNIQUE (card_id)";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        Map<String, String> placeholders = context.getConfiguration().getPlaceholders();
+        String instant = placeholders.getOrDefault("instant-ddl", "");
+        String online = placeholders.getOrDefault("online-ddl", "");
+
+        Integer idType = columnType(connection, "card_id");
+        if (idType != null && (idType == Types.VARCHAR || idType == Types.CHAR)) {
+            if (columnType(connection, "card_id_bin") == null) {
+                execute(connection, ADD_BINARY_ID_SQL + instant);
+            }
+            long copied = copyIds(connection, "card_id");
+            log.info("Copied {} card ids to binary form, replacing cards.card_id", copied);
+            execute(connection, RENAME_TEXT_ID_SQL + online);
+        }
+
+        if (columnType(connection, "card_id_text") != null) {
+            long copied = copyIds(connection, "card_id_text");
+            if (copied > 0) {
+                log.info("Copied {} card ids inserted during the conversion", copied);
+            }
+            execute(connection, DROP_TEXT_ID_SQL + online);
+        }
+
+        if (columnType(connection, "card_id_bin") != null) {
+            execute(connection, RENAME_BINARY_ID_SQL + online);
+        }
+        if (!hasIndex(connection, "uk_card_id")) {
+            execute(connection, ADD_UNIQUE_KEY_SQL + online);
+        }
+    }
+
+    private long copyIds(Connection connection, String textColumn) throws SQLException {
+        long lastId = 0;
+        long copied = 0;
+        try (PreparedStatement select = connection.prepareStatement(SELECT_CHUNK_SQL.formatted(textColumn));
+             PreparedStatement update = connection.prepareStatement(COPY_ID_SQL)) {
+            while (true) {
+                int rows = 0;
+                select.setLong(1, lastId);
+                try (ResultSet chunk = select.executeQuery()) {
+                    while (chunk.next()) {
+                        lastId = chunk.getLong(1);
+                        update.setBytes(1, UuidV7.toBytes(UUID.fromString(chunk.getString(2))));
+                        update.setLong(2, lastId);
+                        update.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows == 0) {
+                    return copied;
+                }
+                update.executeBatch();
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+                copied += rows;
+            }
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    // java.sql.Types code of the column, or null if cards has no such column
+    private Integer columnType(Connection connection, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, "cards", column)) {
+            return columns.next() ? columns.getInt("DATA_TYPE") : null;
+        }
+    }
+
+    private boolean hasIndex(Connection connection, String name) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData()
+                .getIndexInfo(connection.getCatalog(), null, "cards", false, true)) {
+            while (indexes.next()) {
+                if (name.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -2,12 +2,17 @@ package com.hyperativa.controller;
 
 import com.hyperativa.dto.ApiResponse;
 import com.hyperativa.dto.BatchImportResponse;
+import com.hyperativa.dto.CardLookupRequest;
 import com.hyperativa.dto.CardLookupResponse;
 import com.hyperativa.dto.CardRequest;
 import com.hyperativa.dto.CardResponse;
+import com.hyperativa.dto.ImportJobResponse;
 import com.hyperativa.service.contract.CardService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -16,11 +21,16 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 
+import java.io.InputStream;
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/cards")
 public class CardController {
 
+    private static final String GZIP_MEDIA_TYPE = "application/gzip";
+
     private final CardService cardService;
 
     public CardController(CardService cardService) {
@@ -54,6 +64,82 @@ public class CardController {
         return ResponseEntity.ok(ApiResponse.success(response, "Batch import completed successfully"));
     }
 
+    /**
+     * Imports a batch file sent as the raw request body ({@code text/plain} or {@code application/octet-stream},
+     * optionally with {@code Content-Encoding: gzip}, or {@code application/gzip}). The body is parsed as it
+     * arrives, without a temporary copy of the upload; instead of the multipart size limit, the inflated body
+     * is capped by {@code app.batch-import.stream.max-size}.
+     */
+    @PostMapping(value = "/import/stream",
+            consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE, GZIP_MEDIA_TYPE})
+    public ResponseEntity<ApiResponse<BatchImportResponse>> importCardsStream(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest httpRequest) {
+        log.info("Starting streaming batch import");
+        Long userId = (Long) httpRequest.getAttribute("userId");
+
+        boolean gzip = contentType.startsWith(GZIP_MEDIA_TYPE);
+        if (contentEncoding != null && !contentEncoding.isBlank() && !contentEncoding.equalsIgnoreCase("identity")) {
+            if (!contentEncoding.equalsIgnoreCase("gzip")) {
+                return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                        .body(ApiResponse.error("Unsupported content encoding: " + contentEncoding,
+                                HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()));
+            }
+            gzip = true;
+        }
+
+        BatchImportResponse response = cardService.importCardsFromStream(body, gzip, userId);
+        log.info("Batch import completed: {} success, {} errors", response.getSuccessCount(), response.getErrorCount());
+        return ResponseEntity.ok(ApiResponse.success(response, "Batch import completed successfully"));
+    }
+
+    @PostMapping(value = "/import", params = "async=true")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> submitImport(
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest httpRequest) {
+        log.info("Submitting asynchronous batch import");
+        Long userId = (Long) httpRequest.getAttribute("userId");
+
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("File cannot be empty", HttpStatus.BAD_REQUEST.value()));
+        }
+
+        ImportJobResponse response = cardService.submitImport(file, userId);
+        log.info("Batch import job accepted: {}", response.getJobId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Batch import accepted", HttpStatus.ACCEPTED.value()));
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> getImportJob(@PathVariable String jobId,
+                                                                       HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        ImportJobResponse response = cardService.getImportJob(jobId, userId);
+        return ResponseEntity.ok(ApiResponse.success(response, "Import job status"));
+    }
+
+    @GetMapping("/import/{importId}/rejections")
+    public ResponseEntity<Resource> downloadImportRejections(@PathVariable String importId,
+                                                             HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        Resource rejections = cardService.getImportRejections(importId, userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rejections-" + importId + ".csv\"")
+                .body(rejections);
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<ApiResponse<List<CardLookupResponse>>> lookupCards(
+            @Valid @RequestBody CardLookupRequest lookupRequest, HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        List<CardLookupResponse> response = cardService.lookupCards(userId, lookupRequest.getCardNumbers());
+        return ResponseEntity.ok(ApiResponse.success(response, "Card lookup completed"));
+    }
+
     @GetMapping
     public ResponseEntity<ApiResponse<CardLookupResponse>> lookupCard(
             @RequestParam("cardNumber") @NotBlank(message = "Card number is required") String cardNumber, HttpServletRequest httpRequest) {
@@ -1,15 +1,27 @@
 package com.hyperativa.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class BatchImportResponse {
+    private String importId;
     private int totalRecords;
     private int successCount;
     private int errorCount;
     private String message;
+    private List<ImportChunkResult> chunks;
+    // First rejected lines only; errorCount is the total and the full list is in the rejection file
+    private List<ImportLineError> errors;
+
+    public BatchImportResponse(int totalRecords, int successCount, int errorCount, String message) {
+        this(null, totalRecords, successCount, errorCount, message, null, null);
+    }
 }
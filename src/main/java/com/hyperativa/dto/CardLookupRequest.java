@@ -0,0 +1,22 @@
+package com.hyperativa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardLookupRequest {
+    public static final int MAX_CARD_NUMBERS = 1000;
+
+    @NotEmpty(message = "At least one card number is required")
+    @Size(max = MAX_CARD_NUMBERS, message = "At most " + MAX_CARD_NUMBERS + " card numbers can be looked up at once")
+    private List<@NotBlank(message = "Card number is required") String> cardNumbers;
+}
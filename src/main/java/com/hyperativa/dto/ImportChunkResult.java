@@ -0,0 +1,19 @@
+package com.hyperativa.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportChunkResult {
+    private int chunkNumber;
+    private int firstLine;
+    private int lastLine;
+    private int insertedCount;
+    private int errorCount;
+    private String error;
+}
@@ -0,0 +1,13 @@
+package com.hyperativa.dto;
+
+public enum ImportErrorCode {
+    INVALID_RECORD,
+    LINE_TOO_LONG,
+    MISSING_CARD_NUMBER,
+    INVALID_CARD_NUMBER,
+    DUPLICATE_IN_FILE,
+    ALREADY_REGISTERED,
+    ENCRYPTION_FAILED,
+    PERSISTENCE_FAILED,
+    PROCESSING_FAILED
+}
@@ -0,0 +1,23 @@
+package com.hyperativa.dto;
+
+import com.hyperativa.model.ImportJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobResponse {
+    private String jobId;
+    private ImportJobStatus status;
+    private int expectedRecords;
+    private int processedRecords;
+    private int successCount;
+    private int errorCount;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
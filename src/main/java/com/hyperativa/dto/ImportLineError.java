@@ -0,0 +1,16 @@
+package com.hyperativa.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportLineError {
+    private int lineNumber;
+    private ImportErrorCode code;
+    private String maskedCardNumber;
+}
@@ -0,0 +1,9 @@
+package com.hyperativa.dto;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature and expiry have been verified.
+ */
+public record JwtClaims(String username, Long userId, Instant expiresAt) {
+}
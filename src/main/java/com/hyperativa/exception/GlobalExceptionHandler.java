@@ -3,11 +3,13 @@ package com.hyperativa.exception;
 import com.hyperativa.dto.ApiResponse;
 import com.hyperativa.dto.ErrorDetail;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -112,6 +114,36 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE);
     }
 
+    @ExceptionHandler(PayloadTooLargeException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public ResponseEntity<ApiResponse<Void>> handlePayloadTooLargeException(
+            PayloadTooLargeException ex) {
+
+        log.warn("Payload too large: {}", ex.getMessage());
+
+        ApiResponse<Void> response = ApiResponse.error(
+                ex.getMessage(),
+                HttpStatus.PAYLOAD_TOO_LARGE.value()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    @ResponseStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+    public ResponseEntity<ApiResponse<Void>> handleHttpMediaTypeNotSupportedException(
+            HttpMediaTypeNotSupportedException ex) {
+
+        log.warn("Unsupported media type: {}", ex.getMessage());
+
+        ApiResponse<Void> response = ApiResponse.error(
+                ex.getMessage(),
+                HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
     @ExceptionHandler(InvalidFileException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ApiResponse<Void>> handleInvalidFileException(
@@ -172,6 +204,38 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ResponseEntity<ApiResponse<Void>> handleImportJobNotFoundException(
+            ImportJobNotFoundException ex) {
+
+        log.warn("Import job not found: {}", ex.getMessage());
+
+        ApiResponse<Void> response = ApiResponse.error(
+                ex.getMessage(),
+                HttpStatus.NOT_FOUND.value()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ResponseEntity<ApiResponse<Void>> handleTooManyRequestsException(
+            TooManyRequestsException ex) {
+
+        log.warn("Request rejected: {}", ex.getMessage());
+
+        ApiResponse<Void> response = ApiResponse.error(
+                ex.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS.value()
+        );
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<ApiResponse<Void>> handleGenericException(
@@ -0,0 +1,11 @@
+package com.hyperativa.exception;
+
+public class ImportJobNotFoundException extends RuntimeException {
+    public ImportJobNotFoundException(String message) {
+        super(message);
+    }
+
+    public ImportJobNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -4,14 +4,19 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "cards", indexes = {
-    @Index(name = "idx_card_number", columnList = "card_number_encrypted"),
-    @Index(name = "idx_card_id", columnList = "card_id")
+// uk_card_user_hash serves lookups and duplicate detection, idx_card_user_import removing a failed import
+@Table(name = "cards", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_card_user_hash", columnNames = {"user_id", "card_hash"}),
+    @UniqueConstraint(name = "uk_card_id", columnNames = "card_id")
+}, indexes = {
+    @Index(name = "idx_card_user_import", columnList = "user_id, import_id")
 })
 @Data
 @NoArgsConstructor
@@ -22,17 +27,46 @@ public class Card {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String cardId = UUID.randomUUID().toString();
+    // Public id, a UUIDv7 stored as BINARY(16); the API exposes its usual string form
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "card_id", nullable = false, length = 16)
+    private UUID cardId;
 
-    @Column(nullable = false)
+    // Binary AES-GCM envelope: key version byte, 12-byte nonce, ciphertext and 16-byte tag (at most 48 bytes
+    // for a 19-digit card number); null only until a card stored as Base64 text is migrated
+    @Column(name = "card_number_ciphertext", length = 48)
+    private byte[] cardNumberCiphertext;
+
+    // Base64 text form used before binary storage, cleared once the card is migrated
+    @Column(name = "card_number_encrypted")
     private String cardNumberEncrypted;
 
+    // Version of the key the card number is encrypted with; null for cards written before key versioning
+    @Column(name = "key_version")
+    private Integer keyVersion;
+
+    // HMAC-SHA256 blind index of the card number
+    @Column(name = "card_hash", nullable = false, length = 64)
+    private String cardHash;
+
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Batch import that inserted the card, used to compensate imports that fail after committing chunks
+    @Column(name = "import_id", length = 36)
+    private String importId;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Assigned on first persist rather than on construction, so cards that are never stored draw no id.
+    // The JDBC insert paths call this too.
+    @PrePersist
+    public void assignCardId() {
+        if (cardId == null) {
+            cardId = UuidV7.next();
+        }
+    }
+
 }
@@ -0,0 +1,55 @@
+package com.hyperativa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "import_jobs", indexes = {
+    @Index(name = "idx_import_job_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportJobStatus status = ImportJobStatus.PENDING;
+
+    @Column(nullable = false)
+    private String spoolPath;
+
+    // Application instance that last claimed the job, and how many times it has been claimed
+    @Column(length = 36)
+    private String claimedBy;
+
+    private int attempt;
+
+    private int expectedRecords;
+
+    private int processedRecords;
+
+    private int successCount;
+
+    private int errorCount;
+
+    @Column(length = 1000)
+    private String message;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,8 @@
+package com.hyperativa.model;
+
+public enum ImportJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,44 @@
+package com.hyperativa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one pass moving stored cards to a key version and storage format, so the job resumes where
+ * it stopped.
+ */
+@Entity
+@Table(name = "card_encryption_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReEncryptionCheckpoint {
+
+    // Target of the pass, e.g. "key-2/binary"; a new format or key version starts a new pass
+    @Id
+    @Column(length = 32)
+    private String target;
+
+    @Column(nullable = false)
+    private Integer keyVersion;
+
+    // Highest card id already visited; cards at or below it are either done or were skipped as unreadable
+    @Column(nullable = false)
+    private Long lastCardId = 0L;
+
+    private long reEncryptedCount;
+
+    private long failedCount;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,193 @@
+package com.hyperativa.repository;
+
+import com.hyperativa.model.Card;
+import com.hyperativa.model.UuidV7;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC card inserts that leave duplicate detection to {@code uk_card_user_hash}.
+ * <p>
+ * Cards are written with {@code INSERT IGNORE}: a card already registered for the user is skipped by the
+ * unique key instead of failing the statement, and the affected row count tells how many were new. This
+ * replaces a check-then-insert, which took two round trips and could still lose a race. The validated
+ * values never trip the other errors {@code IGNORE} would downgrade to warnings.
+ * <p>
+ * {@code Card.id} uses IDENTITY generation, which prevents Hibernate from batching inserts, so the
+ * import path writes whole chunks as multi-row INSERTs of up to {@value #MAX_ROWS_PER_STATEMENT} rows,
+ * whose update count, unlike a rewritten JDBC batch, is exact. Inside a transaction every chunk is
+ * written under its own savepoint, so a failed chunk leaves no partial rows behind and the surrounding
+ * transaction can carry on.
+ */
+@Repository
+public class CardBatchRepository {
+
+    private static final String INSERT_IGNORE_SQL =
+            "INSERT IGNORE INTO cards (card_id, card_number_ciphertext, key_version, card_hash, created_at, import_id, "
+                    + "user_id) VALUES ";
+    private static final String ROW_VALUES = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 7;
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    // Compare-and-set on the old ciphertext, binary or text (the other parameter is null and never matches),
+    // so a row changed since it was read is left for the next pass
+    private static final String UPDATE_ENCRYPTION_SQL =
+            "UPDATE cards SET card_number_ciphertext = ?, card_number_encrypted = NULL, key_version = ? "
+                    + "WHERE id = ? AND (card_number_ciphertext = ? OR card_number_encrypted = ?)";
+    private static final String SELECT_CIPHERTEXT_SQL = "SELECT id, card_number_ciphertext FROM cards WHERE id IN (";
+
+    private static final String DELETE_IMPORTED_SQL =
+            "DELETE FROM cards WHERE user_id = ? AND import_id = ? LIMIT 5000";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CardBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts a single card unless the user already has it.
+     *
+     * @return {@code true} if the card was inserted, {@code false} if it was already registered
+     */
+    public boolean insertIfAbsent(Card card) {
+        return jdbcTemplate.update(INSERT_IGNORE_SQL + ROW_VALUES, ps -> bind(ps, 0, card)) > 0;
+    }
+
+    /**
+     * Inserts the cards the user does not have yet.
+     *
+     * @return the number of cards inserted; the rest were already registered
+     */
+    public int insertAll(List<Card> cards) {
+        if (cards.isEmpty()) {
+            return 0;
+        }
+
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            int count = 0;
+            try {
+                for (int from = 0; from < cards.size(); from += MAX_ROWS_PER_STATEMENT) {
+                    List<Card> rows = cards.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, cards.size()));
+                    try (PreparedStatement ps = connection.prepareStatement(multiRowInsert(rows.size()))) {
+                        for (int i = 0; i < rows.size(); i++) {
+                            bind(ps, i * COLUMNS, rows.get(i));
+                        }
+                        count += ps.executeUpdate();
+                    }
+                }
+            } catch (SQLException e) {
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                }
+                throw e;
+            }
+
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            return count;
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    private static String multiRowInsert(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_IGNORE_SQL.length() + rows * (ROW_VALUES.length() + 2))
+                .append(INSERT_IGNORE_SQL).append(ROW_VALUES);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", ").append(ROW_VALUES);
+        }
+        return sql.toString();
+    }
+
+    private static void bind(PreparedStatement ps, int offset, Card card) throws SQLException {
+        card.assignCardId();
+        ps.setBytes(offset + 1, UuidV7.toBytes(card.getCardId()));
+        ps.setBytes(offset + 2, card.getCardNumberCiphertext());
+        ps.setInt(offset + 3, card.getKeyVersion());
+        ps.setString(offset + 4, card.getCardHash());
+        ps.setTimestamp(offset + 5, Timestamp.valueOf(card.getCreatedAt()));
+        ps.setString(offset + 6, card.getImportId());
+        ps.setLong(offset + 7, card.getUser().getId());
+    }
+
+    /**
+     * Replaces the ciphertext of already stored cards in one batched statement, moving cards stored as
+     * Base64 text to the binary column and skipping any card whose ciphertext no longer matches the value
+     * it was re-encrypted from. Statements the driver reports as {@link Statement#SUCCESS_NO_INFO} are
+     * counted only for cards that now hold the new ciphertext, which carries a fresh IV and so cannot have
+     * been written by anyone else.
+     *
+     * @return the number of cards actually updated
+     */
+    public int updateEncryption(List<EncryptionUpdate> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_ENCRYPTION_SQL, updates, updates.size(), (ps, update) -> {
+            ps.setBytes(1, update.cardNumberCiphertext());
+            ps.setInt(2, update.keyVersion());
+            ps.setLong(3, update.id());
+            ps.setBytes(4, update.previousCardNumberCiphertext());
+            ps.setString(5, update.previousCardNumberEncrypted());
+        });
+
+        int updated = 0;
+        Map<Long, byte[]> unknown = new HashMap<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                EncryptionUpdate update = updates.get(index++);
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknown.put(update.id(), update.cardNumberCiphertext());
+                } else {
+                    updated += count;
+                }
+            }
+        }
+        return unknown.isEmpty() ? updated : updated + countStored(unknown);
+    }
+
+    // Number of the given cards whose stored ciphertext equals the expected one
+    private int countStored(Map<Long, byte[]> expectedCiphertexts) {
+        String sql = SELECT_CIPHERTEXT_SQL + "?, ".repeat(expectedCiphertexts.size() - 1) + "?)";
+        int[] stored = new int[1];
+        jdbcTemplate.query(sql, rs -> {
+            if (Arrays.equals(rs.getBytes(2), expectedCiphertexts.get(rs.getLong(1)))) {
+                stored[0]++;
+            }
+        }, expectedCiphertexts.keySet().toArray());
+        return stored[0];
+    }
+
+    /**
+     * Removes every card inserted by the given import, in bounded deletes so no single statement
+     * holds locks on a large range of rows.
+     */
+    public int deleteImported(Long userId, String importId) {
+        int deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(DELETE_IMPORTED_SQL, userId, importId);
+            deleted += batch;
+        } while (batch > 0);
+        return deleted;
+    }
+
+    public record EncryptionUpdate(long id, byte[] previousCardNumberCiphertext, String previousCardNumberEncrypted,
+                                   byte[] cardNumberCiphertext, int keyVersion) {
+    }
+}
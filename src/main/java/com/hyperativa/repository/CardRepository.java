@@ -2,14 +2,68 @@ package com.hyperativa.repository;
 
 import com.hyperativa.model.Card;
 import com.hyperativa.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
-    Optional<Card> findByCardId(String cardId);
+    Optional<Card> findByCardId(UUID cardId);
 
-    Optional<Card> findByUserAndCardNumberEncrypted(User user, String encryptedCardNumber);
+    Optional<Card> findByUserAndCardHash(User user, String cardHash);
+
+    boolean existsByUserAndCardHash(User user, String cardHash);
+
+    @Query("SELECT c.cardHash FROM Card c WHERE c.user = :user AND c.cardHash IN :cardHashes")
+    List<String> findRegisteredCardHashes(@Param("user") User user, @Param("cardHashes") Collection<String> cardHashes);
+
+    @Query("SELECT c.cardHash AS cardHash, c.cardId AS cardId FROM Card c "
+            + "WHERE c.user = :user AND c.cardHash IN :cardHashes")
+    List<CardIdView> findCardIds(@Param("user") User user, @Param("cardHashes") Collection<String> cardHashes);
+
+    @Query("SELECT c.cardHash FROM Card c "
+            + "WHERE c.user = :user AND c.importId = :importId AND c.cardHash IN :cardHashes")
+    List<String> findImportedCardHashes(@Param("user") User user, @Param("importId") String importId,
+                                        @Param("cardHashes") Collection<String> cardHashes);
+
+    @Query("SELECT c.id AS id, c.user.id AS userId, c.cardHash AS cardHash FROM Card c "
+            + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CardHashView> findCardHashesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT c.id AS id, c.cardNumberCiphertext AS cardNumberCiphertext, c.cardNumberEncrypted AS cardNumberEncrypted, "
+            + "c.keyVersion AS keyVersion FROM Card c WHERE c.id > :afterId AND (c.cardNumberCiphertext IS NULL "
+            + "OR c.keyVersion IS NULL OR c.keyVersion <> :keyVersion) ORDER BY c.id")
+    List<EncryptedCardView> findNotStoredUnderKeyAfter(@Param("afterId") Long afterId,
+                                                       @Param("keyVersion") Integer keyVersion, Pageable pageable);
+
+    interface CardIdView {
+        String getCardHash();
+
+        UUID getCardId();
+    }
+
+    interface CardHashView {
+        Long getId();
+
+        Long getUserId();
+
+        String getCardHash();
+    }
+
+    interface EncryptedCardView {
+        Long getId();
+
+        byte[] getCardNumberCiphertext();
+
+        String getCardNumberEncrypted();
+
+        Integer getKeyVersion();
+    }
 }
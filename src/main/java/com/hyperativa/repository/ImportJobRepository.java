@@ -0,0 +1,46 @@
+package com.hyperativa.repository;
+
+import com.hyperativa.model.ImportJob;
+import com.hyperativa.model.ImportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+
+    Optional<ImportJob> findByIdAndUserId(String id, Long userId);
+
+    @Query("SELECT j FROM ImportJob j WHERE j.status IN :statuses "
+            + "AND (j.claimedBy IS NULL OR j.claimedBy <> :instanceId) ORDER BY j.createdAt")
+    List<ImportJob> findUnclaimedBy(@Param("instanceId") String instanceId,
+                                    @Param("statuses") Collection<ImportJobStatus> statuses);
+
+    // Compare-and-set on attempt: of several workers that read the same attempt, only one claims the job
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.status = :running, j.claimedBy = :instanceId, j.attempt = j.attempt + 1, "
+            + "j.updatedAt = :updatedAt WHERE j.id = :id AND j.attempt = :attempt AND j.status IN :statuses")
+    int claim(@Param("id") String id, @Param("attempt") int attempt, @Param("instanceId") String instanceId,
+              @Param("running") ImportJobStatus running, @Param("statuses") Collection<ImportJobStatus> statuses,
+              @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Runs in its own transaction so progress is visible while a sequential import holds its own
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE ImportJob j SET j.status = :status, j.expectedRecords = :expected, j.processedRecords = :processed, "
+            + "j.successCount = :success, j.errorCount = :errors, j.message = :message, j.updatedAt = :updatedAt "
+            + "WHERE j.id = :id")
+    int updateProgress(@Param("id") String id, @Param("status") ImportJobStatus status, @Param("expected") int expected,
+                       @Param("processed") int processed, @Param("success") int success, @Param("errors") int errors,
+                       @Param("message") String message, @Param("updatedAt") LocalDateTime updatedAt);
+}
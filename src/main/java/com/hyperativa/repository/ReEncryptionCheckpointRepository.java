@@ -0,0 +1,9 @@
+package com.hyperativa.repository;
+
+import com.hyperativa.model.ReEncryptionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReEncryptionCheckpointRepository extends JpaRepository<ReEncryptionCheckpoint, String> {
+}
@@ -1,6 +1,9 @@
 package com.hyperativa.security;
 
+import com.hyperativa.dto.JwtClaims;
 import com.hyperativa.service.contract.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,15 +16,30 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 
 @Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final UserStatusCache userStatusCache;
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
 
-    public JwtAuthenticationFilter(JwtService jwtService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserStatusCache userStatusCache,
+                                   MeterRegistry meterRegistry) {
         this.jwtService = jwtService;
+        this.userStatusCache = userStatusCache;
+        this.authenticatedTimer = authenticationTimer(meterRegistry, "authenticated");
+        this.rejectedTimer = authenticationTimer(meterRegistry, "rejected");
+    }
+
+    private static Timer authenticationTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("card.auth.jwt")
+            .description("Time to verify a bearer token and resolve its user")
+            .tag("result", result)
+            .register(meterRegistry);
     }
 
     @Override
@@ -32,12 +50,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
+            Timer.Sample sample = Timer.start();
+            boolean authenticated = false;
+
+            Optional<JwtClaims> claims = jwtService.parseToken(token);
 
-            if (jwtService.isTokenValid(token)) {
-                String username = jwtService.extractUsername(token);
-                Long userId = jwtService.extractUserId(token);
+            if (claims.isPresent()) {
+                String username = claims.get().username();
+                Long userId = claims.get().userId();
 
-                if (username != null) {
+                if (!userStatusCache.isActive(userId)) {
+                    log.warn("JWT Token belongs to an unknown or disabled user");
+                } else if (username != null) {
                     UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(username, null, null);
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -45,11 +69,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                     request.setAttribute("userId", userId);
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    authenticated = true;
                     log.debug("JWT Token validated for user: {}", username);
                 }
             } else {
                 log.warn("Invalid JWT Token");
             }
+            sample.stop(authenticated ? authenticatedTimer : rejectedTimer);
         }
 
         filterChain.doFilter(request, response);
@@ -0,0 +1,88 @@
+package com.hyperativa.security;
+
+import com.hyperativa.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs BCrypt hashing and verification on a small dedicated pool instead of the request thread.
+ * <p>
+ * Each BCrypt call is deliberately CPU-heavy, so a login burst served on request threads takes every core
+ * away from the card endpoints. Here at most {@code workers} hashes run at once (half the processors by
+ * default) and up to {@code queue-capacity} more wait; past that the request is refused with
+ * {@link TooManyRequestsException} instead of queueing without bound. Request threads only wait for
+ * their result, which costs no CPU.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejections;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${app.security.password-hashing.workers:0}") int workers,
+                          @Value("${app.security.password-hashing.queue-capacity:32}") int queueCapacity,
+                          MeterRegistry meterRegistry) {
+        int threads = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new CustomizableThreadFactory("password-hashing-"));
+        this.rejections = Counter.builder("card.auth.password.rejected")
+                .description("Password hashing requests refused because the queue was full")
+                .register(meterRegistry);
+
+        new ExecutorServiceMetrics(executor, "card.auth.password", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> result;
+        try {
+            result = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new TooManyRequestsException("Too many authentication requests in progress, please retry later", e);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
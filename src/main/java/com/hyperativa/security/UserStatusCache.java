@@ -0,0 +1,33 @@
+package com.hyperativa.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.hyperativa.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Caches whether a user id belongs to an existing, enabled user, so authenticated requests do not load
+ * the user row each time. Entries expire after {@code app.security.user-status-cache.ttl}, which bounds
+ * how long a disabled or deleted user keeps access with a token issued earlier.
+ */
+@Component
+public class UserStatusCache {
+
+    private final LoadingCache<Long, Boolean> activeUsers;
+
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${app.security.user-status-cache.ttl:60s}") Duration ttl,
+                           @Value("${app.security.user-status-cache.max-size:10000}") long maxSize) {
+        this.activeUsers = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maxSize)
+            .build(userId -> userRepository.findEnabledById(userId).orElse(false));
+    }
+
+    public boolean isActive(Long userId) {
+        return userId != null && activeUsers.get(userId);
+    }
+}
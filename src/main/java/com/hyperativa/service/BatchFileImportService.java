@@ -1,268 +1,504 @@
 package com.hyperativa.service;
 
 import com.hyperativa.dto.BatchImportResponse;
-import com.hyperativa.exception.DuplicateCardException;
-import com.hyperativa.model.Card;
+import com.hyperativa.dto.ImportChunkResult;
+import com.hyperativa.dto.ImportErrorCode;
+import com.hyperativa.exception.PayloadTooLargeException;
 import com.hyperativa.model.User;
-import com.hyperativa.repository.CardRepository;
-import com.hyperativa.service.contract.EncryptionService;
+import com.hyperativa.repository.CardBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports card batch files in a single forward pass over the input stream.
+ * <p>
+ * The reading thread parses each line in place with {@link BatchRecordReader}, validates and hashes the card number and drops repeats inside
+ * the file through a compact fingerprint set. Accepted lines are grouped into chunks that
+ * {@link CardChunkWriter} encrypts, checks against cards already registered and writes with one JDBC
+ * batch. Only the current line and a bounded number of chunks are held in memory.
+ * <p>
+ * The header record count can only be checked once the whole stream has been read, which the two
+ * modes handle differently:
+ * <ul>
+ *     <li>sequential (default): chunks are written on the reading thread inside one transaction, so a
+ *     count mismatch or fatal error rolls back every card inserted by the file;</li>
+ *     <li>parallel ({@code app.batch-import.parallel.enabled}): chunks are written concurrently on the
+ *     batch import executor, each committing on its own, and cards carry the import id so a mismatch
+ *     or fatal error is compensated by deleting everything the import inserted.</li>
+ * </ul>
+ * Streamed request bodies have no upload size limit, so they always commit chunk by chunk and are
+ * compensated like parallel imports, with chunks written on the reading thread when parallel mode is off.
+ * Either way the file is all-or-nothing, and line numbers, error counts and the trailer check are the same.
+ * <p>
+ * Each import records its read, parse, validate and persist time on {@code card.import.phase} and
+ * counts inserted cards and rejections by error code.
+ * <p>
+ * Rejected lines are not logged. They go to an {@link ImportErrorReport}: the response carries the
+ * first few with a masked card number, and the full list is written to a rejection file that
+ * {@link ImportRejectionStore} serves for download under the import id.
+ */
 @Slf4j
 @Service
 public class BatchFileImportService {
 
-    private final CardRepository cardRepository;
-    private final EncryptionService encryptionService;
-    private final CardCreationService cardCreationService;
+    // Matches the BatchRecordReader buffer, so each inflate call fills one read
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
 
-    public BatchFileImportService(CardRepository cardRepository, EncryptionService encryptionService,
-                                  CardCreationService cardCreationService) {
-        this.cardRepository = cardRepository;
-        this.encryptionService = encryptionService;
+    private final CardCreationService cardCreationService;
+    private final CardChunkWriter cardChunkWriter;
+    private final CardBatchRepository cardBatchRepository;
+    private final ExecutorService batchImportExecutor;
+    private final ImportRejectionStore importRejectionStore;
+    private final CardLookupCache cardLookupCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<ImportPhaseTimer.Phase, Timer> phaseTimers;
+    private final Counter importedCards;
+
+    @Value("${app.batch-import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.batch-import.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${app.batch-import.parallel.workers:0}")
+    private int parallelWorkers;
+
+    @Value("${app.batch-import.stream.max-size:64MB}")
+    private DataSize streamMaxSize;
+
+    public BatchFileImportService(CardCreationService cardCreationService, CardChunkWriter cardChunkWriter,
+                                  CardBatchRepository cardBatchRepository, ExecutorService batchImportExecutor,
+                                  ImportRejectionStore importRejectionStore, CardLookupCache cardLookupCache,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
         this.cardCreationService = cardCreationService;
+        this.cardChunkWriter = cardChunkWriter;
+        this.cardBatchRepository = cardBatchRepository;
+        this.batchImportExecutor = batchImportExecutor;
+        this.importRejectionStore = importRejectionStore;
+        this.cardLookupCache = cardLookupCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.phaseTimers = ImportPhaseTimer.registerTimers(meterRegistry);
+        this.importedCards = Counter.builder("card.import.cards")
+                .description("Cards inserted by batch imports")
+                .register(meterRegistry);
     }
 
     public BatchImportResponse importCardsFromFile(MultipartFile file, User user) {
-        log.info("Starting batch import for user: {}", user.getId());
+        try (InputStream inputStream = file.getInputStream()) {
+            return importCards(inputStream, user);
+        } catch (IOException e) {
+            log.error("Error reading file for batch import", e);
+            return new BatchImportResponse(0, 0, 1, "Error reading file: " + e.getMessage());
+        }
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            List<String> allLines = readAllLines(reader);
+    /**
+     * Imports a batch file read straight from a request body, inflating it first when {@code gzip} is set.
+     * Lines are parsed as the bytes arrive and every chunk commits on its own, so neither memory use nor
+     * transaction size depends on the file size. The inflated size is capped by
+     * {@code app.batch-import.stream.max-size}; past it the import is rolled back and
+     * {@link PayloadTooLargeException} thrown.
+     */
+    public BatchImportResponse importCardsFromStream(InputStream body, boolean gzip, User user) {
+        try (InputStream inputStream = new SizeLimitedInputStream(
+                gzip ? new GZIPInputStream(body, GZIP_BUFFER_SIZE) : body, streamMaxSize.toBytes())) {
+            return importCards(inputStream, user, UUID.randomUUID().toString(), ImportProgressListener.NONE, true);
+        } catch (IOException e) {
+            log.error("Error reading request body for batch import", e);
+            return new BatchImportResponse(0, 0, 1, "Error reading file: " + e.getMessage());
+        }
+    }
 
-            if (allLines.isEmpty()) {
-                return new BatchImportResponse(0, 0, 0, "File is empty");
-            }
+    public BatchImportResponse importCards(InputStream inputStream, User user) {
+        return importCards(inputStream, user, UUID.randomUUID().toString(), ImportProgressListener.NONE);
+    }
+
+    /**
+     * Imports a batch file under the given import id, reporting running counters to the listener after
+     * the header and after every chunk.
+     */
+    public BatchImportResponse importCards(InputStream inputStream, User user, String importId,
+                                           ImportProgressListener listener) {
+        return importCards(inputStream, user, importId, listener, false);
+    }
 
-            BatchFileContent content = parseFileContent(allLines);
-            return processBatch(content, user);
+    private BatchImportResponse importCards(InputStream inputStream, User user, String importId,
+                                            ImportProgressListener listener, boolean commitPerChunk) {
+        log.info("Starting batch import for user: {}", user.getId());
+        ImportProgress progress = new ImportProgress(importId, user.getId(), parallelEnabled, commitPerChunk,
+                listener, importRejectionStore.newReport(user.getId(), importId));
 
+        try {
+            BatchImportResponse response = progress.commitPerChunk
+                    ? runImport(inputStream, progress, user)
+                    : transactionTemplate.execute(status -> runImport(inputStream, progress, user));
+            // Includes the commit of a sequential import
+            progress.phases.lap(ImportPhaseTimer.Phase.PERSIST);
+            progress.report.close();
+            recordMetrics(progress);
+            return response;
         } catch (Exception e) {
             log.error("Error reading file for batch import", e);
+            if (progress.commitPerChunk) {
+                compensate(progress, user);
+            }
+            progress.report.discard();
+            listener.onFailure("Error reading file: " + e.getMessage());
+            if (e instanceof PayloadTooLargeException tooLarge) {
+                throw tooLarge;
+            }
             return new BatchImportResponse(0, 0, 1, "Error reading file: " + e.getMessage());
+        } finally {
+            // Runs after the import transaction has committed or rolled back, and after any compensation
+            cardLookupCache.invalidateUser(user.getId());
         }
     }
 
-    private List<String> readAllLines(BufferedReader reader) throws Exception {
-        List<String> lines = new ArrayList<>();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            if (!line.isBlank()) {
-                lines.add(line);
-            }
+    private BatchImportResponse runImport(InputStream inputStream, ImportProgress progress, User user) {
+        BatchRecordReader reader = new BatchRecordReader(inputStream);
+
+        if (!nextNonBlankLine(reader)) {
+            return new BatchImportResponse(0, 0, 0, "File is empty");
         }
-        return lines;
-    }
+        progress.phases.lap(ImportPhaseTimer.Phase.READ);
 
-    private BatchFileContent parseFileContent(List<String> allLines) {
-        String headerLine = allLines.get(0);
-        int expectedRecords;
+        progress.start(parseHeaderLine(reader));
+        progress.phases.lap(ImportPhaseTimer.Phase.PARSE);
+        progress.notifyListener();
+        processBatch(reader, progress, user);
+        validateRecordCount(progress);
 
+        return buildResponse(progress);
+    }
+
+    private int parseHeaderLine(BatchRecordReader reader) {
         try {
-            expectedRecords = parseHeader(headerLine);
+            int expectedRecords = reader.parseHeader();
             log.info("Header parsed successfully. Expected records: {}", expectedRecords);
+            return expectedRecords;
         } catch (Exception e) {
-            log.error("Error parsing header line: {}", headerLine, e);
+            log.error("Error parsing header line: {}", e.getMessage());
             throw new IllegalArgumentException("Invalid file header: " + e.getMessage());
         }
-
-        // Validate that the number of card records matches the expected quantity
-        int actualCardCount = countCardRecords(allLines);
-        if (actualCardCount != expectedRecords) {
-            String validationError = String.format(
-                    "Record count mismatch. Header declares %d records, but found %d card lines",
-                    expectedRecords, actualCardCount);
-            log.error(validationError);
-            throw new IllegalArgumentException(validationError);
-        }
-
-        return new BatchFileContent(expectedRecords, allLines);
     }
 
-    private BatchImportResponse processBatch(BatchFileContent content, User user) {
-        int successCount = 0;
-        int errorCount = 0;
-        int recordsProcessed = 0;
-        String errorMessage = null;
+    private void processBatch(BatchRecordReader reader, ImportProgress progress, User user) {
+        while (nextNonBlankLine(reader)) {
+            progress.phases.lap(ImportPhaseTimer.Phase.READ);
+            progress.lineNumber++;
 
-        for (int i = 1; i < content.allLines.size(); i++) {
-            String line = content.allLines.get(i);
-            int lineNumber = i + 1;
-
-            if (line.trim().isEmpty()) {
+            if (reader.isTooLong()) {
+                // Still counted as a card line when it starts like one, so the header count check stays exact
+                if (reader.isCardRecord()) {
+                    progress.cardLineCount++;
+                }
+                progress.report.reject(progress.lineNumber, ImportErrorCode.LINE_TOO_LONG, null);
+                progress.errorCount++;
+                progress.phases.lap(ImportPhaseTimer.Phase.PARSE);
                 continue;
             }
 
-            if (isTrailer(line)) {
+            if (reader.isTrailer()) {
+                // Trailer counts are checked against persisted cards, so write out anything still pending first
+                flushChunk(progress, user);
+                awaitChunks(progress);
+                progress.phases.lap(ImportPhaseTimer.Phase.PERSIST);
                 try {
-                    validateTrailer(line, recordsProcessed);
+                    validateTrailer(reader.parseTrailer(), progress.recordsProcessed);
                     log.info("Trailer validated successfully");
                 } catch (Exception e) {
                     log.warn("Trailer validation failed: {}", e.getMessage());
-                    errorMessage = e.getMessage();
+                    progress.errorMessage = e.getMessage();
                 }
+                progress.phases.lap(ImportPhaseTimer.Phase.VALIDATE);
                 continue;
             }
 
+            boolean cardRecord = reader.isCardRecord();
+            if (cardRecord) {
+                progress.cardLineCount++;
+            }
+            String cardNumber = reader.cardNumber();
+            progress.phases.lap(ImportPhaseTimer.Phase.PARSE);
+
             try {
-                if (processCard(line, user)) {
-                    successCount++;
-                    recordsProcessed++;
+                boolean staged = stageCard(cardNumber, cardRecord, progress, user);
+                progress.phases.lap(ImportPhaseTimer.Phase.VALIDATE);
+
+                if (staged) {
+                    if (progress.pending.size() >= Math.max(1, chunkSize)) {
+                        flushChunk(progress, user);
+                        progress.phases.lap(ImportPhaseTimer.Phase.PERSIST);
+                    }
                 } else {
-                    errorCount++;
+                    progress.errorCount++;
                 }
             } catch (Exception e) {
-                log.error("Error processing card at line {}: {}", lineNumber, e.getMessage());
-                errorCount++;
+                if (e instanceof DataAccessException dataAccess && !progress.commitPerChunk) {
+                    // A failed query marks the import transaction rollback-only, so the import cannot succeed
+                    throw dataAccess;
+                }
+                progress.report.reject(progress.lineNumber, ImportErrorCode.PROCESSING_FAILED, null);
+                progress.errorCount++;
+                progress.phases.lap(ImportPhaseTimer.Phase.VALIDATE);
             }
         }
+        progress.phases.lap(ImportPhaseTimer.Phase.READ);
 
-        return buildResponse(content.expectedRecords, recordsProcessed, successCount, errorCount, errorMessage);
+        flushChunk(progress, user);
+        awaitChunks(progress);
+        progress.phases.lap(ImportPhaseTimer.Phase.PERSIST);
     }
 
-    private boolean processCard(String line, User user) {
-        String cardNumber = extractCardNumber(line);
+    private boolean nextNonBlankLine(BatchRecordReader reader) {
+        try {
+            while (reader.nextLine()) {
+                if (!reader.isBlank()) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
 
-        if (cardNumber == null || cardNumber.isEmpty()) {
-            log.warn("Unable to extract card number from line: {}", line);
+    private boolean stageCard(String cardNumber, boolean cardRecord, ImportProgress progress, User user) {
+        if (cardNumber == null) {
+            progress.report.reject(progress.lineNumber,
+                    cardRecord ? ImportErrorCode.MISSING_CARD_NUMBER : ImportErrorCode.INVALID_RECORD, null);
             return false;
         }
 
+        String cardHash;
         try {
-            cardCreationService.createCard(cardNumber, user);
-            return true;
-        } catch (DuplicateCardException e) {
-            log.warn("Skipping duplicate card");
+            cardHash = cardCreationService.hashCardNumber(cardNumber);
+        } catch (RuntimeException e) {
+            progress.report.reject(progress.lineNumber, ImportErrorCode.INVALID_CARD_NUMBER, cardNumber);
             return false;
         }
-    }
-
-    private BatchImportResponse buildResponse(int expectedRecords, int recordsProcessed, int successCount,
-                                              int errorCount, String errorMessage) {
-        String message = String.format("Batch import completed. Expected: %d, Processed: %d, Success: %d, Errors: %d",
-                expectedRecords, recordsProcessed, successCount, errorCount);
 
-        if (errorMessage != null) {
-            message += ". Warning: " + errorMessage;
+        // A fingerprint hit is only a candidate: confirm it against the chunks of this file or the database
+        if (!progress.seenCardHashes.add(cardHash)) {
+            ImportErrorCode duplicate = duplicateError(progress, cardHash, user);
+            if (duplicate != null) {
+                progress.report.reject(progress.lineNumber, duplicate, cardNumber);
+                return false;
+            }
         }
 
-        log.info(message);
-        return new BatchImportResponse(expectedRecords, successCount, errorCount, message);
+        progress.pending.add(progress.lineNumber, cardNumber, cardHash);
+        return true;
     }
 
-    private int parseHeader(String headerLine) {
-        if (headerLine.length() < 51) {
-            throw new IllegalArgumentException("Header line must be at least 51 characters long");
+    // Chunks leave the in-flight queue only once their transaction has finished, so anything not found
+    // in memory is either written (and visible to the queries) or was never staged. A stored card counts as
+    // repeated in the file only if this import inserted it. Returns null for a fingerprint false positive.
+    private ImportErrorCode duplicateError(ImportProgress progress, String cardHash, User user) {
+        if (progress.pending.contains(cardHash)) {
+            return ImportErrorCode.DUPLICATE_IN_FILE;
+        }
+        for (InFlightChunk inFlight : progress.inFlight) {
+            if (inFlight.chunk().contains(cardHash)) {
+                return ImportErrorCode.DUPLICATE_IN_FILE;
+            }
+        }
+        if (!cardCreationService.isRegistered(user, cardHash)) {
+            return null;
         }
+        return cardCreationService.findImported(user, progress.importId, List.of(cardHash)).isEmpty()
+                ? ImportErrorCode.ALREADY_REGISTERED
+                : ImportErrorCode.DUPLICATE_IN_FILE;
+    }
 
-        String nome = headerLine.substring(0, 29).trim();
-        String data = headerLine.substring(29, 37).trim();
-        String lote = headerLine.substring(37, 45).trim();
-        String qtyStr = headerLine.substring(45, 51).trim();
+    private void flushChunk(ImportProgress progress, User user) {
+        CardChunk chunk = progress.pending;
+        if (chunk.isEmpty()) {
+            return;
+        }
+        progress.pending = new CardChunk(chunk.chunkNumber() + 1);
 
-        if (nome.isEmpty()) {
-            throw new IllegalArgumentException("Batch name (position 1-29) is empty");
+        if (!progress.parallel) {
+            recordChunk(progress, progress.commitPerChunk
+                    ? cardChunkWriter.writeInNewTransaction(chunk, user, progress.importId)
+                    : cardChunkWriter.write(chunk, user, progress.importId));
+            return;
         }
-        if (data.isEmpty() || !data.matches("\\d{8}")) {
-            throw new IllegalArgumentException("Invalid date format (position 30-37). Expected YYYYMMDD");
+
+        while (!progress.inFlight.isEmpty()
+                && (progress.inFlight.size() >= maxChunksInFlight() || progress.inFlight.peekFirst().result().isDone())) {
+            recordOldestChunk(progress);
         }
-        if (lote.isEmpty()) {
-            throw new IllegalArgumentException("Batch ID (position 38-45) is empty");
+
+        Future<ChunkWriteResult> result = batchImportExecutor.submit(
+                () -> cardChunkWriter.writeInNewTransaction(chunk, user, progress.importId));
+        progress.inFlight.addLast(new InFlightChunk(chunk, result));
+    }
+
+    private void awaitChunks(ImportProgress progress) {
+        while (!progress.inFlight.isEmpty()) {
+            recordOldestChunk(progress);
         }
+    }
 
+    private void recordOldestChunk(ImportProgress progress) {
+        InFlightChunk inFlight = progress.inFlight.peekFirst();
         try {
-            int quantity = Integer.parseInt(qtyStr);
-            if (quantity < 0) {
-                throw new IllegalArgumentException("Record quantity cannot be negative");
-            }
-            return quantity;
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid record quantity format (position 46-51). Expected numeric value");
+            ChunkWriteResult result = inFlight.result().get();
+            progress.inFlight.pollFirst();
+            recordChunk(progress, result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch import was interrupted", e);
+        } catch (ExecutionException e) {
+            progress.inFlight.pollFirst();
+            throw new IllegalStateException("Chunk " + inFlight.chunk().chunkNumber() + " failed: "
+                    + e.getCause().getMessage(), e.getCause());
         }
     }
 
-    private int countCardRecords(List<String> allLines) {
-        int cardCount = 0;
-
-        // Start from line 1 (skip header at position 0)
-        for (int i = 1; i < allLines.size(); i++) {
-            String line = allLines.get(i);
+    private void recordChunk(ImportProgress progress, ChunkWriteResult result) {
+        ImportChunkResult summary = result.summary();
+        progress.chunks.add(summary);
+        progress.successCount += summary.getInsertedCount();
+        progress.recordsProcessed += summary.getInsertedCount();
+        progress.errorCount += summary.getErrorCount();
+        progress.report.addAll(result.rejections());
+        if (progress.commitPerChunk && summary.getInsertedCount() > 0) {
+            // These chunks commit on their own, so their cards are visible to lookups already
+            cardLookupCache.invalidateUser(progress.userId);
+        }
+        progress.notifyListener();
+    }
 
-            if (line.trim().isEmpty()) {
-                continue;
-            }
+    private int maxChunksInFlight() {
+        int workers = parallelWorkers > 0 ? parallelWorkers : Runtime.getRuntime().availableProcessors();
+        return workers * 2;
+    }
 
-            // Skip trailer lines
-            if (isTrailer(line)) {
-                continue;
+    private void compensate(ImportProgress progress, User user) {
+        for (InFlightChunk inFlight : progress.inFlight) {
+            try {
+                inFlight.result().get();
+            } catch (Exception e) {
+                log.debug("Chunk {} did not complete", inFlight.chunk().chunkNumber());
             }
+        }
+        progress.inFlight.clear();
 
-            // Count lines that start with 'C' (card records)
-            if (line.length() > 0 && line.substring(0, 1).trim().equalsIgnoreCase("C")) {
-                cardCount++;
+        try {
+            int removed = cardBatchRepository.deleteImported(user.getId(), progress.importId);
+            if (removed > 0) {
+                log.warn("Batch import {} failed; removed {} cards it had already committed", progress.importId, removed);
             }
+        } catch (Exception e) {
+            log.error("Unable to compensate failed batch import {}", progress.importId, e);
         }
-
-        return cardCount;
     }
 
-    private boolean isTrailer(String line) {
-        return line.length() >= 8 && line.substring(0, 4).trim().equalsIgnoreCase("LOTE");
+    private void recordMetrics(ImportProgress progress) {
+        progress.phases.record(phaseTimers);
+        importedCards.increment(progress.successCount);
+        progress.report.recordRejections(meterRegistry);
     }
 
-    private void validateTrailer(String trailerLine, int recordsProcessed) {
-        if (trailerLine.length() < 14) {
-            throw new IllegalArgumentException("Trailer line must be at least 14 characters long");
+    private void validateRecordCount(ImportProgress progress) {
+        if (progress.cardLineCount != progress.expectedRecords) {
+            String validationError = String.format(
+                    "Record count mismatch. Header declares %d records, but found %d card lines",
+                    progress.expectedRecords, progress.cardLineCount);
+            log.error(validationError);
+            throw new IllegalArgumentException(validationError);
         }
+    }
 
-        String lote = trailerLine.substring(0, 8).trim();
-        String qtyStr = trailerLine.substring(8, 14).trim();
+    private BatchImportResponse buildResponse(ImportProgress progress) {
+        String message = String.format("Batch import completed. Expected: %d, Processed: %d, Success: %d, Errors: %d",
+                progress.expectedRecords, progress.recordsProcessed, progress.successCount, progress.errorCount);
 
-        if (!lote.equalsIgnoreCase("LOTE")) {
-            throw new IllegalArgumentException("Invalid trailer format. Expected LOTE at position 1-8");
+        if (progress.errorMessage != null) {
+            message += ". Warning: " + progress.errorMessage;
         }
 
-        try {
-            int trailerQty = Integer.parseInt(qtyStr);
-            if (trailerQty != recordsProcessed) {
-                throw new IllegalArgumentException(
-                        String.format("Trailer record count (%d) does not match processed records (%d)",
-                                trailerQty, recordsProcessed));
-            }
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid record quantity in trailer (position 9-14)");
-        }
+        log.info(message);
+        return new BatchImportResponse(progress.importId, progress.expectedRecords, progress.successCount,
+                progress.errorCount, message, progress.chunks, progress.report.reported());
     }
 
-    private String extractCardNumber(String line) {
-        if (line.length() < 8) {
-            return null;
-        }
-
-        String type = line.substring(0, 1).trim();
-        if (!type.equalsIgnoreCase("C")) {
-            return null;
+    private void validateTrailer(int trailerQty, int recordsProcessed) {
+        if (trailerQty != recordsProcessed) {
+            throw new IllegalArgumentException(
+                    String.format("Trailer record count (%d) does not match processed records (%d)",
+                            trailerQty, recordsProcessed));
         }
+    }
 
-        int endIndex = Math.min(26, line.length());
-        String cardNumber = line.substring(7, endIndex).trim();
-
-        return cardNumber.isEmpty() ? null : cardNumber;
+    private record InFlightChunk(CardChunk chunk, Future<ChunkWriteResult> result) {
     }
 
-    private static class BatchFileContent {
+    private static class ImportProgress {
+        final String importId;
+        final Long userId;
+        final boolean parallel;
+        final boolean commitPerChunk;
+        final List<ImportChunkResult> chunks = new ArrayList<>();
+        final Deque<InFlightChunk> inFlight = new ArrayDeque<>();
+        final ImportProgressListener listener;
+        final ImportErrorReport report;
+        final ImportPhaseTimer phases = new ImportPhaseTimer();
+        CardFingerprintSet seenCardHashes;
+        CardChunk pending = new CardChunk(1);
         int expectedRecords;
-        List<String> allLines;
+        int lineNumber = 1;
+        int cardLineCount;
+        int recordsProcessed;
+        int successCount;
+        int errorCount;
+        String errorMessage;
+
+        ImportProgress(String importId, Long userId, boolean parallel, boolean commitPerChunk,
+                       ImportProgressListener listener, ImportErrorReport report) {
+            this.importId = importId;
+            this.userId = userId;
+            this.parallel = parallel;
+            // Chunks written on other threads cannot join a transaction of the reading thread
+            this.commitPerChunk = parallel || commitPerChunk;
+            this.listener = listener;
+            this.report = report;
+        }
 
-        BatchFileContent(int expectedRecords, List<String> allLines) {
+        void start(int expectedRecords) {
             this.expectedRecords = expectedRecords;
-            this.allLines = allLines;
+            this.seenCardHashes = new CardFingerprintSet(expectedRecords);
+        }
+
+        void notifyListener() {
+            listener.onProgress(new BatchImportResponse(expectedRecords, successCount, errorCount, null));
         }
     }
 }
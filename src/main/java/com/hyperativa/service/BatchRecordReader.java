@@ -0,0 +1,273 @@
+package com.hyperativa.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the fixed-width batch layout straight from the input bytes.
+ * <p>
+ * Lines are located in a reusable byte buffer and fields are checked in place at their column offsets
+ * (header 1-29/30-37/38-45/46-51, card 1/2-7/8-26, trailer 1-8/9-14), so the only allocation per card
+ * line is the card number itself. Columns are byte offsets, which match character positions for the
+ * single-byte layout. Field rules are those of the former substring-based parsing: fields are trimmed of
+ * characters up to {@code ' '}, type codes compare case-insensitively and quantities accept a sign.
+ * <p>
+ * Line terminators are {@code \n}, {@code \r} and {@code \r\n}. Field accessors describe the line
+ * returned by the last {@link #nextLine()} call. A line longer than the maximum length is cut there and
+ * flagged {@link #isTooLong() too long}; the rest of it is skipped unread, so the buffer never grows.
+ * Not thread-safe.
+ */
+public final class BatchRecordReader {
+
+    // Records are at most 51 characters; this leaves room for trailing padding
+    private static final int DEFAULT_MAX_LINE_LENGTH = 1024;
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final byte[] buffer;
+    private final int maxLineLength;
+    private int position;
+    private int limit;
+    private int lineStart;
+    private int lineLength;
+    private boolean tooLong;
+    private boolean skipLineFeed;
+    private boolean endOfStream;
+
+    public BatchRecordReader(InputStream inputStream) {
+        this(inputStream, DEFAULT_MAX_LINE_LENGTH, DEFAULT_BUFFER_SIZE);
+    }
+
+    BatchRecordReader(InputStream inputStream, int maxLineLength, int bufferSize) {
+        this.inputStream = inputStream;
+        this.maxLineLength = Math.max(51, maxLineLength);
+        // A whole line and the byte after it always fit, so reading on never needs more room
+        this.buffer = new byte[Math.max(this.maxLineLength + 1, bufferSize)];
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return {@code false} once the stream is exhausted
+     */
+    public boolean nextLine() throws IOException {
+        int scan = position;
+        tooLong = false;
+
+        while (true) {
+            if (skipLineFeed && position < limit) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    scan = position;
+                }
+            }
+
+            for (int i = scan; i < limit; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    setLine(i);
+                    position = i + 1;
+                    skipLineFeed = b == '\r';
+                    return true;
+                }
+            }
+
+            if (endOfStream) {
+                if (position < limit) {
+                    setLine(limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+
+            if (limit - position > maxLineLength) {
+                // Keep the first maxLineLength bytes and read the rest of the line over the bytes after them
+                tooLong = true;
+                limit = position + maxLineLength;
+            }
+            scan = limit - position;
+            fill();
+        }
+    }
+
+    /**
+     * @return whether the line was longer than the maximum length; only its start is available then
+     */
+    public boolean isTooLong() {
+        return tooLong;
+    }
+
+    public boolean isBlank() {
+        if (tooLong) {
+            return false;
+        }
+        for (int i = lineStart; i < lineStart + lineLength; i++) {
+            if (!isWhitespace(buffer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isCardRecord() {
+        return lineLength > 0 && matchesIgnoreCase(lineStart, "C");
+    }
+
+    public boolean isTrailer() {
+        return lineLength >= 8 && matchesIgnoreCase(lineStart, "LOTE");
+    }
+
+    /**
+     * @return the record quantity declared by the header
+     * @throws IllegalArgumentException if the line is not a valid header
+     */
+    public int parseHeader() {
+        if (tooLong) {
+            throw new IllegalArgumentException("Header line is longer than " + maxLineLength + " characters");
+        }
+        if (lineLength < 51) {
+            throw new IllegalArgumentException("Header line must be at least 51 characters long");
+        }
+        if (isBlankField(0, 29)) {
+            throw new IllegalArgumentException("Batch name (position 1-29) is empty");
+        }
+        if (!isDigits(29, 8)) {
+            throw new IllegalArgumentException("Invalid date format (position 30-37). Expected YYYYMMDD");
+        }
+        if (isBlankField(37, 8)) {
+            throw new IllegalArgumentException("Batch ID (position 38-45) is empty");
+        }
+
+        int quantity = parseQuantity(45, 6,
+                "Invalid record quantity format (position 46-51). Expected numeric value");
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Record quantity cannot be negative");
+        }
+        return quantity;
+    }
+
+    /**
+     * @return the record quantity declared by the trailer
+     * @throws IllegalArgumentException if the line is not a valid trailer
+     */
+    public int parseTrailer() {
+        if (lineLength < 14) {
+            throw new IllegalArgumentException("Trailer line must be at least 14 characters long");
+        }
+
+        int from = trimStart(0, 8);
+        int to = trimEnd(0, 8);
+        if (to - from != 4 || !matchesIgnoreCase(lineStart + from, "LOTE")) {
+            throw new IllegalArgumentException("Invalid trailer format. Expected LOTE at position 1-8");
+        }
+
+        return parseQuantity(8, 6, "Invalid record quantity in trailer (position 9-14)");
+    }
+
+    /**
+     * @return the trimmed card number (positions 8-26) of a card record, or {@code null} if there is none
+     */
+    public String cardNumber() {
+        if (lineLength < 8 || !isCardRecord()) {
+            return null;
+        }
+
+        int length = Math.min(26, lineLength) - 7;
+        int from = trimStart(7, length);
+        int to = trimEnd(7, length);
+        return from < to ? new String(buffer, lineStart + from, to - from, StandardCharsets.ISO_8859_1) : null;
+    }
+
+    private void setLine(int end) {
+        lineStart = position;
+        lineLength = Math.min(end - position, maxLineLength);
+        tooLong |= end - position > maxLineLength;
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+
+        int read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private boolean matchesIgnoreCase(int at, String upperCaseAscii) {
+        for (int i = 0; i < upperCaseAscii.length(); i++) {
+            // Setting bit 0x20 folds ASCII upper case letters onto lower case
+            if ((buffer[at + i] | 0x20) != (upperCaseAscii.charAt(i) | 0x20)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlankField(int column, int width) {
+        return trimStart(column, width) == column + width;
+    }
+
+    private boolean isDigits(int column, int width) {
+        for (int i = lineStart + column; i < lineStart + column + width; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseQuantity(int column, int width, String error) {
+        int from = trimStart(column, width);
+        int to = trimEnd(column, width);
+        boolean negative = false;
+
+        if (from < to && (buffer[lineStart + from] == '-' || buffer[lineStart + from] == '+')) {
+            negative = buffer[lineStart + from] == '-';
+            from++;
+        }
+        if (from == to) {
+            throw new IllegalArgumentException(error);
+        }
+
+        int value = 0;
+        for (int i = lineStart + from; i < lineStart + to; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                throw new IllegalArgumentException(error);
+            }
+            value = value * 10 + (buffer[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // Trimming follows String.trim: anything up to and including ' ' is stripped
+    private int trimStart(int column, int width) {
+        int from = column;
+        while (from < column + width && (buffer[lineStart + from] & 0xff) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int column, int width) {
+        int to = column + width;
+        while (to > column && (buffer[lineStart + to - 1] & 0xff) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    // Same set as Character.isWhitespace for single-byte values
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0d) || (b >= 0x1c && b <= 0x1f);
+    }
+}
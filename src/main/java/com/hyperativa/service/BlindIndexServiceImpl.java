@@ -0,0 +1,75 @@
+package com.hyperativa.service;
+
+import com.hyperativa.service.contract.BlindIndexService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Keyed HMAC-SHA256 "blind index" over card numbers.
+ * <p>
+ * Lookups and duplicate checks go through this fixed-width digest instead of the ciphertext, so they
+ * stay a single indexed probe regardless of the encryption scheme. The index key is separate from the
+ * encryption key and, like it, given in Base64; it must hold at least 32 bytes, the HMAC-SHA256 output size.
+ */
+@Slf4j
+@Service
+public class BlindIndexServiceImpl implements BlindIndexService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 32;
+
+    @Value("${app.encryption.index-key}")
+    private String indexKey;
+
+    @Value("${app.encryption.cipher-pool-size:0}")
+    private int poolSize;
+
+    private CryptoEnginePool<Mac> macs;
+
+    @PostConstruct
+    public void init() {
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(indexKey.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Index key (app.encryption.index-key) must be Base64", e);
+        }
+        if (key.length < MIN_KEY_LENGTH) {
+            throw new IllegalStateException("Index key (app.encryption.index-key) must be at least "
+                    + MIN_KEY_LENGTH + " bytes long");
+        }
+
+        SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+        int maxIdle = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2;
+
+        macs = new CryptoEnginePool<>(() -> newMac(keySpec), maxIdle);
+    }
+
+    @Override
+    public String hash(String plainText) {
+        try {
+            Mac mac = macs.borrow();
+            byte[] digest = mac.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            macs.release(mac);
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            log.error("Error hashing data", e);
+            throw new RuntimeException("Hashing failed", e);
+        }
+    }
+
+    private static Mac newMac(SecretKeySpec keySpec) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(keySpec);
+        return mac;
+    }
+}
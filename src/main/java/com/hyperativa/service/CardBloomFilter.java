@@ -0,0 +1,149 @@
+package com.hyperativa.service;
+
+import com.hyperativa.repository.CardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the (user id, card hash) pairs of every stored card, held in one shared
+ * {@code long} bit array.
+ * <p>
+ * A negative answer from {@link #mightContain} means the user definitely has no such card, which lets
+ * lookups, single inserts and import chunks skip their database probe. Pairs are added before the
+ * insert that stores them, so a committed card is never reported absent; a rolled back or deleted card
+ * only leaves a false positive behind. The filter is sized for {@code app.card-bloom-filter.expected-cards}
+ * at {@code app.card-bloom-filter.false-positive-rate} and is rebuilt from the cards table once the
+ * application is ready; until then every pair is reported as possibly present.
+ * <p>
+ * Inserts made by other application instances are not seen, so a card created elsewhere would be reported
+ * absent. The filter is therefore off unless {@code app.card-bloom-filter.enabled=true}, which is only
+ * correct when a single instance writes to the database.
+ */
+@Slf4j
+@Component
+public class CardBloomFilter {
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final CardRepository cardRepository;
+    private final boolean enabled;
+    private final long expectedCards;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private volatile boolean ready;
+
+    public CardBloomFilter(CardRepository cardRepository,
+                           @Value("${app.card-bloom-filter.enabled:false}") boolean enabled,
+                           @Value("${app.card-bloom-filter.expected-cards:1000000}") long expectedCards,
+                           @Value("${app.card-bloom-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.cardRepository = cardRepository;
+        this.enabled = enabled;
+        this.expectedCards = Math.max(1, expectedCards);
+
+        // Standard sizing: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hash functions
+        double rate = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long words = enabled
+                ? Math.max(1, (long) Math.ceil(-this.expectedCards * Math.log(rate) / (Math.log(2) * Math.log(2)) / 64))
+                : 1;
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large for " + expectedCards + " cards");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / this.expectedCards * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        long cards = 0;
+
+        while (true) {
+            List<CardRepository.CardHashView> page = cardRepository.findCardHashesAfter(lastId,
+                    PageRequest.of(0, REBUILD_PAGE_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (CardRepository.CardHashView card : page) {
+                put(card.getUserId(), card.getCardHash());
+            }
+            cards += page.size();
+            lastId = page.get(page.size() - 1).getId();
+        }
+
+        ready = true;
+        log.info("Card bloom filter built from {} cards in {} ms ({} bits, {} hash functions)",
+                cards, System.currentTimeMillis() - start, bitCount, hashFunctions);
+        if (cards > expectedCards) {
+            log.warn("Card bloom filter holds {} cards but is sized for {}; raise app.card-bloom-filter.expected-cards",
+                    cards, expectedCards);
+        }
+    }
+
+    public void put(Long userId, String cardHash) {
+        if (!enabled || userId == null || cardHash == null) {
+            return;
+        }
+
+        long h1 = firstHash(userId, cardHash);
+        long h2 = secondHash(userId, cardHash);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} only if the user definitely has no card with this hash
+     */
+    public boolean mightContain(Long userId, String cardHash) {
+        if (!enabled || !ready || userId == null || cardHash == null) {
+            return true;
+        }
+
+        long h1 = firstHash(userId, cardHash);
+        long h2 = secondHash(userId, cardHash);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Card hashes are HMAC output, so their hex digits are already uniformly distributed
+    private static long firstHash(Long userId, String cardHash) {
+        return mix(Long.parseUnsignedLong(cardHash, 0, 16, 16) ^ userId);
+    }
+
+    private static long secondHash(Long userId, String cardHash) {
+        // Odd, so successive probes never collapse onto the same bit
+        return mix(Long.parseUnsignedLong(cardHash, 16, 32, 16) + userId * 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
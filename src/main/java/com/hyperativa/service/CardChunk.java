@@ -0,0 +1,66 @@
+package com.hyperativa.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A run of validated, hashed and file-deduplicated card lines waiting to be encrypted and persisted.
+ */
+final class CardChunk {
+
+    record StagedCard(int lineNumber, String cardNumber, String cardHash) {
+    }
+
+    private final int chunkNumber;
+    private final List<StagedCard> cards = new ArrayList<>();
+    private final Set<String> cardHashes = new HashSet<>();
+    private int firstLine;
+    private int lastLine;
+
+    CardChunk(int chunkNumber) {
+        this.chunkNumber = chunkNumber;
+    }
+
+    void add(int lineNumber, String cardNumber, String cardHash) {
+        if (cards.isEmpty()) {
+            firstLine = lineNumber;
+        }
+        lastLine = lineNumber;
+        cards.add(new StagedCard(lineNumber, cardNumber, cardHash));
+        cardHashes.add(cardHash);
+    }
+
+    boolean contains(String cardHash) {
+        return cardHashes.contains(cardHash);
+    }
+
+    boolean isEmpty() {
+        return cards.isEmpty();
+    }
+
+    int size() {
+        return cards.size();
+    }
+
+    int chunkNumber() {
+        return chunkNumber;
+    }
+
+    int firstLine() {
+        return firstLine;
+    }
+
+    int lastLine() {
+        return lastLine;
+    }
+
+    List<StagedCard> cards() {
+        return cards;
+    }
+
+    Set<String> cardHashes() {
+        return cardHashes;
+    }
+}
@@ -0,0 +1,162 @@
+package com.hyperativa.service;
+
+import com.hyperativa.dto.ImportChunkResult;
+import com.hyperativa.dto.ImportErrorCode;
+import com.hyperativa.dto.ImportLineError;
+import com.hyperativa.model.Card;
+import com.hyperativa.model.User;
+import com.hyperativa.repository.CardBatchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Encrypts and persists one {@link CardChunk}: cards already registered for the user are filtered
+ * out with a single {@code IN (...)} lookup, which also attributes them to their lines, and the rest are
+ * written with one multi-row {@code INSERT IGNORE}.
+ * <p>
+ * Sequential imports call {@link #write} inside the import transaction, which a database error fails as a
+ * whole, since a failed query leaves it rollback-only. Parallel imports call
+ * {@link #writeInNewTransaction} from worker threads, streamed imports from the reading thread; encryption
+ * runs freely there, but the database part is capped by {@code app.batch-import.parallel.max-db-concurrency}
+ * across all imports so workers queue on a permit instead of exhausting the connection pool.
+ */
+@Slf4j
+@Service
+public class CardChunkWriter {
+
+    private final CardCreationService cardCreationService;
+    private final CardBatchRepository cardBatchRepository;
+    private final TransactionTemplate chunkTransactionTemplate;
+    private final CardBloomFilter cardBloomFilter;
+    private final Semaphore dbPermits;
+    private final Timer chunkTimer;
+
+    public CardChunkWriter(CardCreationService cardCreationService, CardBatchRepository cardBatchRepository,
+                           CardBloomFilter cardBloomFilter, PlatformTransactionManager transactionManager,
+                           @Value("${app.batch-import.parallel.max-db-concurrency:4}") int maxDbConcurrency,
+                           MeterRegistry meterRegistry) {
+        this.cardCreationService = cardCreationService;
+        this.cardBatchRepository = cardBatchRepository;
+        this.cardBloomFilter = cardBloomFilter;
+        this.chunkTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dbPermits = new Semaphore(Math.max(1, maxDbConcurrency), true);
+        this.chunkTimer = Timer.builder("card.import.chunk")
+                .description("Time to check and insert one import chunk")
+                .register(meterRegistry);
+    }
+
+    ChunkWriteResult write(CardChunk chunk, User user, String importId) {
+        List<ImportLineError> rejections = new ArrayList<>();
+        List<Card> cards = prepareCards(chunk, user, importId, rejections);
+        return persist(chunk, cards, user, rejections);
+    }
+
+    ChunkWriteResult writeInNewTransaction(CardChunk chunk, User user, String importId) {
+        List<ImportLineError> rejections = new ArrayList<>();
+        List<Card> cards = prepareCards(chunk, user, importId, rejections);
+
+        try {
+            dbPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(chunk, "Chunk import was interrupted");
+        }
+
+        try {
+            return chunkTransactionTemplate.execute(status -> persist(chunk, cards, user, rejections));
+        } catch (DataAccessException e) {
+            log.error("Error persisting chunk {} (lines {}-{}): {}", chunk.chunkNumber(), chunk.firstLine(),
+                    chunk.lastLine(), e.getClass().getSimpleName());
+            return failed(chunk, "Chunk could not be persisted");
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    private List<Card> prepareCards(CardChunk chunk, User user, String importId, List<ImportLineError> rejections) {
+        List<Card> cards = new ArrayList<>(chunk.size());
+
+        for (CardChunk.StagedCard staged : chunk.cards()) {
+            try {
+                Card card = cardCreationService.prepareCard(staged.cardNumber(), staged.cardHash(), user);
+                card.setImportId(importId);
+                cards.add(card);
+            } catch (Exception e) {
+                rejections.add(ImportErrorReport.rejection(staged.lineNumber(), ImportErrorCode.ENCRYPTION_FAILED,
+                        staged.cardNumber()));
+            }
+        }
+        return cards;
+    }
+
+    private ChunkWriteResult persist(CardChunk chunk, List<Card> cards, User user, List<ImportLineError> rejections) {
+        Timer.Sample sample = Timer.start();
+        try {
+            Set<String> registered = cardCreationService.findRegistered(user, chunk.cardHashes());
+            List<Card> newCards = cards;
+
+            if (!registered.isEmpty()) {
+                newCards = cards.stream()
+                        .filter(card -> !registered.contains(card.getCardHash()))
+                        .toList();
+                for (CardChunk.StagedCard staged : chunk.cards()) {
+                    if (registered.contains(staged.cardHash())) {
+                        rejections.add(ImportErrorReport.rejection(staged.lineNumber(),
+                                ImportErrorCode.ALREADY_REGISTERED, staged.cardNumber()));
+                    }
+                }
+            }
+
+            for (Card card : newCards) {
+                cardBloomFilter.put(user.getId(), card.getCardHash());
+            }
+            int inserted = cardBatchRepository.insertAll(newCards);
+            if (inserted < newCards.size()) {
+                rejectConcurrentlyRegistered(chunk, newCards, user, rejections);
+            }
+            ImportChunkResult summary = new ImportChunkResult(chunk.chunkNumber(), chunk.firstLine(), chunk.lastLine(),
+                    inserted, chunk.size() - inserted, null);
+            return new ChunkWriteResult(summary, rejections);
+        } finally {
+            sample.stop(chunkTimer);
+        }
+    }
+
+    // Cards registered by another request after the lookup above were skipped by uk_card_user_hash
+    private void rejectConcurrentlyRegistered(CardChunk chunk, List<Card> newCards, User user,
+                                              List<ImportLineError> rejections) {
+        Set<String> skipped = new HashSet<>(newCards.stream().map(Card::getCardHash).toList());
+        skipped.removeAll(cardCreationService.findImported(user, newCards.get(0).getImportId(), skipped));
+
+        for (CardChunk.StagedCard staged : chunk.cards()) {
+            if (skipped.contains(staged.cardHash())) {
+                rejections.add(ImportErrorReport.rejection(staged.lineNumber(), ImportErrorCode.ALREADY_REGISTERED,
+                        staged.cardNumber()));
+            }
+        }
+    }
+
+    private ChunkWriteResult failed(CardChunk chunk, String error) {
+        ImportChunkResult summary = new ImportChunkResult(chunk.chunkNumber(), chunk.firstLine(), chunk.lastLine(), 0,
+                chunk.size(), error);
+        List<ImportLineError> rejections = chunk.cards().stream()
+                .map(staged -> ImportErrorReport.rejection(staged.lineNumber(), ImportErrorCode.PERSISTENCE_FAILED,
+                        staged.cardNumber()))
+                .toList();
+        return new ChunkWriteResult(summary, rejections);
+    }
+}
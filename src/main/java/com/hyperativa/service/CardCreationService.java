@@ -3,36 +3,118 @@ package com.hyperativa.service;
 import com.hyperativa.exception.DuplicateCardException;
 import com.hyperativa.model.Card;
 import com.hyperativa.model.User;
+import com.hyperativa.repository.CardBatchRepository;
 import com.hyperativa.repository.CardRepository;
+import com.hyperativa.service.contract.BlindIndexService;
 import com.hyperativa.service.contract.EncryptionService;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Slf4j
 @Service
 public class CardCreationService {
 
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
     private final CardRepository cardRepository;
+    private final CardBatchRepository cardBatchRepository;
     private final EncryptionService encryptionService;
+    private final BlindIndexService blindIndexService;
+    private final CardLookupCache cardLookupCache;
+    private final CardBloomFilter cardBloomFilter;
 
-    public CardCreationService(CardRepository cardRepository, EncryptionService encryptionService) {
+    public CardCreationService(CardRepository cardRepository, CardBatchRepository cardBatchRepository,
+                               EncryptionService encryptionService, BlindIndexService blindIndexService,
+                               CardLookupCache cardLookupCache, CardBloomFilter cardBloomFilter) {
         this.cardRepository = cardRepository;
+        this.cardBatchRepository = cardBatchRepository;
         this.encryptionService = encryptionService;
+        this.blindIndexService = blindIndexService;
+        this.cardLookupCache = cardLookupCache;
+        this.cardBloomFilter = cardBloomFilter;
     }
 
+    /**
+     * Stores a card in a single round trip: {@code uk_card_user_hash} rejects a card the user already has,
+     * including one inserted concurrently, instead of a lookup before the insert.
+     */
+    @Timed(value = "card.create", description = "Time to validate, encrypt and store a single card")
     public Card createCard(String cardNumber, User user) {
-        validateCardNumber(cardNumber);
-        String encryptedCardNumber = encryptionService.encrypt(cardNumber);
+        Card card = prepareCard(cardNumber, user);
 
-        if (cardRepository.findByUserAndCardNumberEncrypted(user, encryptedCardNumber).isPresent()) {
+        cardBloomFilter.put(user.getId(), card.getCardHash());
+        if (!cardBatchRepository.insertIfAbsent(card)) {
             throw new DuplicateCardException("This card is already registered for this user");
         }
+        cardLookupCache.put(user.getId(), card.getCardHash(), card.getCardId().toString());
+        return card;
+    }
+
+    public Card prepareCard(String cardNumber, User user) {
+        return prepareCard(cardNumber, hashCardNumber(cardNumber), user);
+    }
 
+    /**
+     * Encrypts an already validated and hashed card number into a new, unsaved card. Used by bulk
+     * imports, which hash and deduplicate lines up front and persist cards in chunks instead of one
+     * {@code save} per card.
+     */
+    public Card prepareCard(String cardNumber, String cardHash, User user) {
         Card card = new Card();
-        card.setCardNumberEncrypted(encryptedCardNumber);
+        card.setCardNumberCiphertext(encryptionService.encrypt(cardNumber));
+        card.setKeyVersion(encryptionService.activeKeyVersion());
+        card.setCardHash(cardHash);
         card.setUser(user);
+        return card;
+    }
+
+    public String hashCardNumber(String cardNumber) {
+        validateCardNumber(cardNumber);
+        return blindIndexService.hash(cardNumber);
+    }
+
+    public boolean isRegistered(User user, String cardHash) {
+        return cardBloomFilter.mightContain(user.getId(), cardHash)
+                && cardRepository.existsByUserAndCardHash(user, cardHash);
+    }
+
+    /**
+     * Returns which of the given card hashes are already registered for the user, using chunked
+     * {@code IN (...)} lookups instead of one query per card. Hashes the bloom filter rules out are
+     * not queried at all.
+     */
+    public Set<String> findRegistered(User user, Collection<String> cardHashes) {
+        Set<String> registered = new HashSet<>();
+        List<String> values = cardHashes.stream()
+                .filter(cardHash -> cardBloomFilter.mightContain(user.getId(), cardHash))
+                .toList();
 
-        return cardRepository.save(card);
+        for (int from = 0; from < values.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> batch = values.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, values.size()));
+            registered.addAll(cardRepository.findRegisteredCardHashes(user, batch));
+        }
+        return registered;
+    }
+
+    /**
+     * Returns which of the given card hashes were inserted by the import, telling them apart from cards
+     * another request registered first.
+     */
+    public Set<String> findImported(User user, String importId, Collection<String> cardHashes) {
+        Set<String> imported = new HashSet<>();
+        List<String> values = List.copyOf(cardHashes);
+
+        for (int from = 0; from < values.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> batch = values.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, values.size()));
+            imported.addAll(cardRepository.findImportedCardHashes(user, importId, batch));
+        }
+        return imported;
     }
 
     private void validateCardNumber(String cardNumber) {
@@ -40,8 +122,26 @@ public class CardCreationService {
             throw new RuntimeException("Card number cannot be empty");
         }
 
-        if (!cardNumber.matches("\\d{13,19}")) {
+        if (!isCardNumber(cardNumber)) {
             throw new RuntimeException("Invalid card number format");
         }
     }
+
+    /**
+     * Whether the value is 13 to 19 ASCII digits, checked without a regex. Public so the benchmarks
+     * measure this method rather than a copy of it.
+     */
+    public static boolean isCardNumber(String cardNumber) {
+        int length = cardNumber.length();
+        if (length < 13 || length > 19) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = cardNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
 }
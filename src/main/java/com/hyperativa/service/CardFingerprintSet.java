@@ -0,0 +1,84 @@
+package com.hyperativa.service;
+
+/**
+ * Compact set of 64-bit fingerprints used to spot repeated card numbers inside one import file.
+ * <p>
+ * Values are reduced to a long and kept in an open-addressing {@code long[]}, so a file with a million
+ * cards costs a few megabytes instead of a million retained strings. Two different values can share a
+ * fingerprint, so {@link #add} returning {@code false} means "possibly seen" and callers must confirm
+ * the duplicate before rejecting a card.
+ */
+final class CardFingerprintSet {
+
+    private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+    private long[] slots;
+    private boolean containsZero;
+    private int size;
+
+    CardFingerprintSet(int expectedSize) {
+        // Smallest power of two that keeps the expected size at or below half load
+        int capacity = Integer.highestOneBit(Math.max(16, Math.min(expectedSize, MAX_INITIAL_CAPACITY)) - 1) << 2;
+        this.slots = new long[capacity];
+    }
+
+    /**
+     * @return {@code true} if the fingerprint was not present yet
+     */
+    boolean add(String value) {
+        long fingerprint = fingerprint(value);
+
+        if (fingerprint == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        if ((size + 1) * 2 > slots.length) {
+            resize();
+        }
+
+        if (!insert(slots, fingerprint)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    private static boolean insert(long[] table, long fingerprint) {
+        int mask = table.length - 1;
+        int index = (int) fingerprint & mask;
+
+        while (table[index] != 0) {
+            if (table[index] == fingerprint) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        table[index] = fingerprint;
+        return true;
+    }
+
+    private void resize() {
+        long[] resized = new long[slots.length * 2];
+        for (long fingerprint : slots) {
+            if (fingerprint != 0) {
+                insert(resized, fingerprint);
+            }
+        }
+        slots = resized;
+    }
+
+    private static long fingerprint(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+
+        // Final avalanche so neighbouring slots are not correlated with similar inputs
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
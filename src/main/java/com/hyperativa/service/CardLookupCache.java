@@ -0,0 +1,89 @@
+package com.hyperativa.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches card lookups by (user id, card hash), remembering misses as well as the card id of hits.
+ * <p>
+ * A single card creation updates its own entry. Imports can add or remove many cards at once, so
+ * instead of tracking their hashes each user has an epoch: every entry records the epoch read before
+ * its database query, and {@link #invalidateUser} bumps it once import writes are committed, turning
+ * all older entries of that user into misses. Epochs are drawn from one clock and kept in a cache of the
+ * same bounds; a user whose epoch was evicted gets a new one, newer than any entry already cached.
+ * Entries are otherwise bounded by {@code app.card-lookup-cache.max-size} and expire after
+ * {@code app.card-lookup-cache.ttl}.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics named {@code card.lookup}.
+ */
+@Component
+public class CardLookupCache {
+
+    private record CardKey(Long userId, String cardHash) {
+    }
+
+    private record CachedLookup(String cardId, long epoch) {
+    }
+
+    private final Cache<CardKey, CachedLookup> lookups;
+    private final Cache<Long, Long> userEpochs;
+    private final AtomicLong epochClock = new AtomicLong();
+
+    public CardLookupCache(MeterRegistry meterRegistry,
+                           @Value("${app.card-lookup-cache.ttl:10m}") Duration ttl,
+                           @Value("${app.card-lookup-cache.max-size:100000}") long maxSize) {
+        this.lookups = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.userEpochs = Caffeine.newBuilder()
+                .expireAfterAccess(ttl)
+                .maximumSize(maxSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, lookups, "card.lookup");
+    }
+
+    /**
+     * Returns the cached card id for the hash, calling the loader on a miss or a stale entry.
+     */
+    public Optional<String> findCardId(Long userId, String cardHash, Function<String, Optional<String>> loader) {
+        CardKey key = new CardKey(userId, cardHash);
+        long epoch = epoch(userId);
+
+        CachedLookup cached = lookups.get(key, k -> new CachedLookup(loader.apply(cardHash).orElse(null), epoch));
+        if (cached.epoch() < epoch) {
+            lookups.invalidate(key);
+            cached = lookups.get(key, k -> new CachedLookup(loader.apply(cardHash).orElse(null), epoch));
+        }
+        return Optional.ofNullable(cached.cardId());
+    }
+
+    /**
+     * Records a card that has just been committed. Caffeine serializes this with a load of the same
+     * key, so a miss read before the commit cannot overwrite it.
+     */
+    public void put(Long userId, String cardHash, String cardId) {
+        lookups.put(new CardKey(userId, cardHash), new CachedLookup(cardId, epoch(userId)));
+    }
+
+    /**
+     * Makes every cached lookup of the user stale. Call after import writes are committed or removed.
+     */
+    public void invalidateUser(Long userId) {
+        // Concurrent calls may store out of order; keeping the larger value never moves the epoch back
+        userEpochs.asMap().merge(userId, epochClock.incrementAndGet(), Math::max);
+    }
+
+    private long epoch(Long userId) {
+        return userEpochs.get(userId, id -> epochClock.incrementAndGet());
+    }
+}
@@ -0,0 +1,180 @@
+package com.hyperativa.service;
+
+import com.hyperativa.model.ReEncryptionCheckpoint;
+import com.hyperativa.repository.CardBatchRepository;
+import com.hyperativa.repository.CardBatchRepository.EncryptionUpdate;
+import com.hyperativa.repository.CardRepository;
+import com.hyperativa.repository.CardRepository.EncryptedCardView;
+import com.hyperativa.repository.ReEncryptionCheckpointRepository;
+import com.hyperativa.service.contract.EncryptionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves stored cards to the active encryption key and the binary ciphertext column in the background.
+ * <p>
+ * Started once the application is ready, it walks {@code cards} by id in chunks of
+ * {@code app.encryption.re-encryption.chunk-size}, reading only cards under another key version (or
+ * none, for cards written before key versioning) or still stored as Base64 text. Text already under the
+ * active key is only decoded; everything else is re-encrypted. Each chunk is written back in one
+ * short transaction together with its {@link ReEncryptionCheckpoint}, so only the rows of the current
+ * chunk are ever locked and a restart resumes after the last committed chunk. Writes compare against
+ * the ciphertext that was read, leaving concurrently changed cards untouched. Throughput is capped at
+ * {@code app.encryption.re-encryption.rows-per-second} to leave database capacity to live traffic.
+ * <p>
+ * Once a pass finds nothing left the checkpoint is marked complete and later startups skip the walk;
+ * rotating to a new active version starts a fresh checkpoint. Like import job recovery, this assumes a
+ * single application instance runs the job.
+ */
+@Slf4j
+@Service
+public class CardReEncryptionService {
+
+    private final CardRepository cardRepository;
+    private final CardBatchRepository cardBatchRepository;
+    private final ReEncryptionCheckpointRepository checkpointRepository;
+    private final EncryptionService encryptionService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter reEncryptedCards;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("card-reencryption-"));
+
+    @Value("${app.encryption.re-encryption.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.encryption.re-encryption.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.encryption.re-encryption.rows-per-second:500}")
+    private int rowsPerSecond;
+
+    private volatile boolean stopping;
+
+    public CardReEncryptionService(CardRepository cardRepository, CardBatchRepository cardBatchRepository,
+                                   ReEncryptionCheckpointRepository checkpointRepository,
+                                   EncryptionService encryptionService, PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.cardRepository = cardRepository;
+        this.cardBatchRepository = cardBatchRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.encryptionService = encryptionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reEncryptedCards = Counter.builder("card.encryption.reencrypted")
+                .description("Stored cards re-encrypted under the active key")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            executor.execute(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        int keyVersion = encryptionService.activeKeyVersion();
+        String target = "key-" + keyVersion + "/binary";
+        try {
+            ReEncryptionCheckpoint checkpoint = checkpointRepository.findById(target).orElseGet(() -> {
+                ReEncryptionCheckpoint created = new ReEncryptionCheckpoint();
+                created.setTarget(target);
+                created.setKeyVersion(keyVersion);
+                return created;
+            });
+            if (checkpoint.getCompletedAt() != null) {
+                return;
+            }
+
+            log.info("Re-encrypting cards under key version {} from card id {}", keyVersion, checkpoint.getLastCardId());
+            long nanosPerRow = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rowsPerSecond);
+
+            while (!stopping) {
+                long started = System.nanoTime();
+                Integer processed = transactionTemplate.execute(status -> reEncryptChunk(checkpoint));
+                if (processed == null || processed == 0) {
+                    checkpoint.setCompletedAt(LocalDateTime.now());
+                    checkpoint.setUpdatedAt(checkpoint.getCompletedAt());
+                    checkpointRepository.save(checkpoint);
+                    log.info("Re-encryption under key version {} completed: {} cards re-encrypted, {} failed",
+                            keyVersion, checkpoint.getReEncryptedCount(), checkpoint.getFailedCount());
+                    return;
+                }
+
+                long pause = processed * nanosPerRow - (System.nanoTime() - started);
+                if (pause > 0) {
+                    TimeUnit.NANOSECONDS.sleep(pause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Re-encryption under key version {} stopped, it resumes on the next start", keyVersion, e);
+        }
+    }
+
+    private int reEncryptChunk(ReEncryptionCheckpoint checkpoint) {
+        List<EncryptedCardView> chunk = cardRepository.findNotStoredUnderKeyAfter(
+                checkpoint.getLastCardId(), checkpoint.getKeyVersion(), PageRequest.ofSize(chunkSize));
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        List<EncryptionUpdate> updates = new ArrayList<>(chunk.size());
+        int failed = 0;
+        for (EncryptedCardView card : chunk) {
+            try {
+                updates.add(new EncryptionUpdate(card.getId(), card.getCardNumberCiphertext(),
+                        card.getCardNumberEncrypted(), ciphertextUnderKey(card, checkpoint.getKeyVersion()),
+                        checkpoint.getKeyVersion()));
+            } catch (Exception e) {
+                log.error("Unable to re-encrypt card id {}", card.getId());
+                failed++;
+            }
+        }
+
+        int updated = cardBatchRepository.updateEncryption(updates);
+        reEncryptedCards.increment(updated);
+
+        checkpoint.setLastCardId(chunk.get(chunk.size() - 1).getId());
+        checkpoint.setReEncryptedCount(checkpoint.getReEncryptedCount() + updated);
+        checkpoint.setFailedCount(checkpoint.getFailedCount() + failed);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        return chunk.size();
+    }
+
+    private byte[] ciphertextUnderKey(EncryptedCardView card, int keyVersion) {
+        if (card.getCardNumberCiphertext() == null && card.getKeyVersion() != null && card.getKeyVersion() == keyVersion) {
+            return Base64.getDecoder().decode(card.getCardNumberEncrypted());
+        }
+
+        String cardNumber = card.getCardNumberCiphertext() != null
+                ? encryptionService.decrypt(card.getCardNumberCiphertext())
+                : encryptionService.decryptText(card.getCardNumberEncrypted(), card.getKeyVersion());
+        return encryptionService.encrypt(cardNumber);
+    }
+}
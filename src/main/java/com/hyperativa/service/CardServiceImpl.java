@@ -4,35 +4,56 @@ import com.hyperativa.dto.BatchImportResponse;
 import com.hyperativa.dto.CardLookupResponse;
 import com.hyperativa.dto.CardRequest;
 import com.hyperativa.dto.CardResponse;
+import com.hyperativa.dto.ImportJobResponse;
 import com.hyperativa.exception.CardNotFoundException;
-import com.hyperativa.exception.UserNotFoundException;
+import com.hyperativa.exception.ImportJobNotFoundException;
 import com.hyperativa.model.Card;
 import com.hyperativa.model.User;
 import com.hyperativa.repository.CardRepository;
 import com.hyperativa.service.contract.CardService;
-import com.hyperativa.service.contract.EncryptionService;
+import com.hyperativa.service.contract.BlindIndexService;
 import com.hyperativa.service.contract.UserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Slf4j
 @Service
 public class CardServiceImpl implements CardService {
 
     private final CardRepository cardRepository;
-    private final EncryptionService encryptionService;
+    private final BlindIndexService blindIndexService;
     private final UserService userService;
     private final BatchFileImportService batchFileImportService;
     private final CardCreationService cardCreationService;
+    private final ImportJobService importJobService;
+    private final ImportRejectionStore importRejectionStore;
+    private final CardLookupCache cardLookupCache;
+    private final CardBloomFilter cardBloomFilter;
 
-    public CardServiceImpl(CardRepository cardRepository, EncryptionService encryptionService, UserService userService,
-                          BatchFileImportService batchFileImportService, CardCreationService cardCreationService) {
+    public CardServiceImpl(CardRepository cardRepository, BlindIndexService blindIndexService, UserService userService,
+                          BatchFileImportService batchFileImportService, CardCreationService cardCreationService,
+                          ImportJobService importJobService, ImportRejectionStore importRejectionStore,
+                          CardLookupCache cardLookupCache, CardBloomFilter cardBloomFilter) {
         this.cardRepository = cardRepository;
-        this.encryptionService = encryptionService;
+        this.blindIndexService = blindIndexService;
         this.userService = userService;
         this.batchFileImportService = batchFileImportService;
         this.cardCreationService = cardCreationService;
+        this.importJobService = importJobService;
+        this.importRejectionStore = importRejectionStore;
+        this.cardLookupCache = cardLookupCache;
+        this.cardBloomFilter = cardBloomFilter;
     }
 
     @Override
@@ -44,20 +65,61 @@ public class CardServiceImpl implements CardService {
         Card savedCard = cardCreationService.createCard(cardNumber, user);
 
         log.info("Card inserted successfully with ID: {}", savedCard.getCardId());
-        return new CardResponse(savedCard.getCardId(), "Card inserted successfully");
+        return new CardResponse(savedCard.getCardId().toString(), "Card inserted successfully");
     }
 
     @Override
     public CardLookupResponse lookupCard(Long userId, String cardNumber) {
         log.info("Looking up card");
 
-        String encryptedCardNumber = encryptionService.encrypt(cardNumber.trim());
+        String cardHash = blindIndexService.hash(cardNumber.trim());
+
+        if (!cardBloomFilter.mightContain(userId, cardHash)) {
+            throw new CardNotFoundException("Card not found");
+        }
 
-        Card card = cardRepository.findByUserAndCardNumberEncrypted(fetchUser(userId), encryptedCardNumber)
+        String cardId = cardLookupCache.findCardId(userId, cardHash,
+                        hash -> cardRepository.findByUserAndCardHash(fetchUser(userId), hash)
+                                .map(card -> card.getCardId().toString()))
                 .orElseThrow(() -> new CardNotFoundException("Card not found"));
 
-        log.info("Card found with ID: {}", card.getCardId());
-        return new CardLookupResponse(card.getCardId(), true);
+        log.info("Card found with ID: {}", cardId);
+        return new CardLookupResponse(cardId, true);
+    }
+
+    /**
+     * Hashes every card number, drops the ones the bloom filter rules out and resolves the rest with a
+     * single {@code IN (...)} query; results follow the order of the input.
+     */
+    @Override
+    public List<CardLookupResponse> lookupCards(Long userId, List<String> cardNumbers) {
+        log.info("Looking up {} cards", cardNumbers.size());
+
+        List<String> cardHashes = new ArrayList<>(cardNumbers.size());
+        Set<String> candidates = new HashSet<>();
+        for (String cardNumber : cardNumbers) {
+            String cardHash = blindIndexService.hash(cardNumber.trim());
+            cardHashes.add(cardHash);
+            if (cardBloomFilter.mightContain(userId, cardHash)) {
+                candidates.add(cardHash);
+            }
+        }
+
+        Map<String, String> cardIds = new HashMap<>();
+        if (!candidates.isEmpty()) {
+            for (CardRepository.CardIdView card : cardRepository.findCardIds(fetchUser(userId), candidates)) {
+                cardIds.put(card.getCardHash(), card.getCardId().toString());
+            }
+        }
+
+        List<CardLookupResponse> results = new ArrayList<>(cardHashes.size());
+        for (String cardHash : cardHashes) {
+            String cardId = cardIds.get(cardHash);
+            results.add(new CardLookupResponse(cardId, cardId != null));
+        }
+
+        log.info("Card lookup completed - Found: {} of {}", cardIds.size(), cardNumbers.size());
+        return results;
     }
 
     @Override
@@ -66,8 +128,31 @@ public class CardServiceImpl implements CardService {
         return batchFileImportService.importCardsFromFile(file, user);
     }
 
+    @Override
+    public BatchImportResponse importCardsFromStream(InputStream body, boolean gzip, Long userId) {
+        User user = fetchUser(userId);
+        return batchFileImportService.importCardsFromStream(body, gzip, user);
+    }
+
+    @Override
+    public ImportJobResponse submitImport(MultipartFile file, Long userId) {
+        return importJobService.submit(file, userId);
+    }
+
+    @Override
+    public ImportJobResponse getImportJob(String jobId, Long userId) {
+        return importJobService.findJob(jobId, userId);
+    }
+
+    @Override
+    public Resource getImportRejections(String importId, Long userId) {
+        return importRejectionStore.find(userId, importId)
+                .map(FileSystemResource::new)
+                .orElseThrow(() -> new ImportJobNotFoundException("Rejection file not found"));
+    }
+
+    // The authentication filter has already checked that the user exists and is enabled
     public User fetchUser(Long userId) {
-        return userService.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        return userService.getReference(userId);
     }
 }
@@ -0,0 +1,12 @@
+package com.hyperativa.service;
+
+import com.hyperativa.dto.ImportChunkResult;
+import com.hyperativa.dto.ImportLineError;
+
+import java.util.List;
+
+/**
+ * Outcome of writing one {@link CardChunk}: the summary reported to the client and the lines it rejected.
+ */
+record ChunkWriteResult(ImportChunkResult summary, List<ImportLineError> rejections) {
+}
@@ -0,0 +1,53 @@
+package com.hyperativa.service;
+
+import java.security.GeneralSecurityException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, lock-free pool of initialized JCA engines ({@code Cipher}, {@code Mac}) for a single key.
+ * <p>
+ * The engines are not thread-safe, but after {@code doFinal} they are back in their initialized state
+ * and can be reused without another provider lookup or key expansion. Instances are borrowed per call
+ * rather than held in a {@code ThreadLocal}, so virtual threads share a small set of engines instead of
+ * each creating its own, and nothing blocks while holding a monitor.
+ */
+final class CryptoEnginePool<T> {
+
+    @FunctionalInterface
+    interface EngineFactory<T> {
+        T create() throws GeneralSecurityException;
+    }
+
+    private final EngineFactory<T> factory;
+    private final int maxIdle;
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    CryptoEnginePool(EngineFactory<T> factory, int maxIdle) {
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+
+    T borrow() throws GeneralSecurityException {
+        T engine = idle.poll();
+        if (engine != null) {
+            idleCount.decrementAndGet();
+            return engine;
+        }
+        return factory.create();
+    }
+
+    /**
+     * Returns an engine whose last operation completed normally. Engines that threw must be dropped,
+     * as their internal state is undefined.
+     */
+    void release(T engine) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(engine);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -1,36 +1,124 @@
 package com.hyperativa.service;
 
 import com.hyperativa.service.contract.EncryptionService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.List;
 
+/**
+ * AES-GCM encryption of card numbers under versioned keys.
+ * <p>
+ * Ciphertexts are binary envelopes of a key version byte, a random 96-bit nonce and the GCM ciphertext
+ * with its 128-bit tag; the version byte is authenticated as associated data. {@link #encrypt} always
+ * uses {@code app.encryption.active-version}, while every version listed in {@code app.encryption.keys}
+ * stays readable, so a key can be rotated while {@link CardReEncryptionService} moves stored cards over.
+ * <p>
+ * Cards stored before the binary column hold the same envelope Base64-encoded, or, if written before key
+ * versioning, AES/ECB under {@code app.encryption.key}; both are only read, through {@link #decryptText}.
+ */
 @Slf4j
 @Service
 public class EncryptionServiceImpl implements EncryptionService {
 
-    @Value("${app.encryption.key}")
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String LEGACY_ALGORITHM = "AES";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int HEADER_LENGTH = 1 + NONCE_LENGTH;
+    private static final int MAX_KEY_VERSION = 255;
+
+    // Entries of the form "<version>:<Base64 AES key>"
+    @Value("${app.encryption.keys}")
+    private List<String> keys;
+
+    @Value("${app.encryption.active-version}")
+    private int activeVersion;
+
+    @Value("${app.encryption.key:}")
     private String encryptionKey;
 
-    private static final String ALGORITHM = "AES";
+    @Value("${app.encryption.cipher-pool-size:0}")
+    private int cipherPoolSize;
+
+    private final SecretKey[] keysByVersion = new SecretKey[MAX_KEY_VERSION + 1];
+    private SecureRandom nonces;
+    private CryptoEnginePool<Cipher> ciphers;
+    private CryptoEnginePool<Cipher> legacyDecryptCiphers;
+
+    /**
+     * Decodes the configured keys once and prepares the cipher pools. GCM ciphers are re-initialized with
+     * a fresh nonce on every call, so the pool only saves the provider lookup.
+     */
+    @PostConstruct
+    public void init() {
+        for (String entry : keys) {
+            int separator = entry.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalStateException("Encryption keys must be given as <version>:<Base64 key>");
+            }
+            int version = Integer.parseInt(entry.substring(0, separator).trim());
+            byte[] key = Base64.getDecoder().decode(entry.substring(separator + 1).trim());
+            if (version < 1 || version > MAX_KEY_VERSION) {
+                throw new IllegalStateException("Encryption key version must be between 1 and " + MAX_KEY_VERSION);
+            }
+            if (key.length != 16 && key.length != 24 && key.length != 32) {
+                throw new IllegalStateException("Encryption key " + version + " must be 16, 24 or 32 bytes long");
+            }
+            keysByVersion[version] = new SecretKeySpec(key, LEGACY_ALGORITHM);
+        }
+        if (activeVersion < 1 || activeVersion > MAX_KEY_VERSION || keysByVersion[activeVersion] == null) {
+            throw new IllegalStateException("No encryption key configured for active version " + activeVersion);
+        }
+
+        try {
+            // DRBG only locks around in-memory work, unlike NativePRNG, which reads /dev/urandom under a monitor
+            nonces = SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("DRBG SecureRandom is not available", e);
+        }
+
+        int poolSize = cipherPoolSize > 0 ? cipherPoolSize : Runtime.getRuntime().availableProcessors() * 2;
+        ciphers = new CryptoEnginePool<>(() -> Cipher.getInstance(TRANSFORMATION), poolSize);
+
+        if (!encryptionKey.isEmpty()) {
+            SecretKey legacyKey = legacyKey(encryptionKey);
+            legacyDecryptCiphers = new CryptoEnginePool<>(() -> {
+                Cipher cipher = Cipher.getInstance(LEGACY_ALGORITHM);
+                cipher.init(Cipher.DECRYPT_MODE, legacyKey);
+                return cipher;
+            }, poolSize);
+        }
+    }
 
     @Override
-    public String encrypt(String plainText) {
+    @Timed(value = "card.encryption", extraTags = {"operation", "encrypt"})
+    public byte[] encrypt(String plainText) {
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            SecretKeySpec keySpec = new SecretKeySpec(
-                getKeyBytes(),
-                0,
-                16,
-                ALGORITHM
-            );
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec);
-            byte[] encryptedBytes = cipher.doFinal(plainText.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+            byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+            byte[] envelope = new byte[HEADER_LENGTH + plainBytes.length + TAG_BITS / 8];
+            byte[] nonce = new byte[NONCE_LENGTH];
+            nonces.nextBytes(nonce);
+            envelope[0] = (byte) activeVersion;
+            System.arraycopy(nonce, 0, envelope, 1, NONCE_LENGTH);
+
+            Cipher cipher = ciphers.borrow();
+            cipher.init(Cipher.ENCRYPT_MODE, keysByVersion[activeVersion], new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(envelope, 0, 1);
+            cipher.doFinal(plainBytes, 0, plainBytes.length, envelope, HEADER_LENGTH);
+            ciphers.release(cipher);
+            return envelope;
         } catch (Exception e) {
             log.error("Error encrypting data", e);
             throw new RuntimeException("Encryption failed", e);
@@ -38,32 +126,66 @@ public class EncryptionServiceImpl implements EncryptionService {
     }
 
     @Override
-    public String decrypt(String encryptedText) {
+    @Timed(value = "card.encryption", extraTags = {"operation", "decrypt"})
+    public String decrypt(byte[] envelope) {
+        try {
+            if (envelope.length < HEADER_LENGTH + TAG_BITS / 8) {
+                throw new IllegalArgumentException("Encrypted value is too short");
+            }
+            int version = envelope[0] & 0xff;
+            if (keysByVersion[version] == null) {
+                throw new IllegalStateException("No encryption key configured for version " + version);
+            }
+
+            Cipher cipher = ciphers.borrow();
+            cipher.init(Cipher.DECRYPT_MODE, keysByVersion[version],
+                    new GCMParameterSpec(TAG_BITS, envelope, 1, NONCE_LENGTH));
+            cipher.updateAAD(envelope, 0, 1);
+            byte[] decryptedBytes = cipher.doFinal(envelope, HEADER_LENGTH, envelope.length - HEADER_LENGTH);
+            ciphers.release(cipher);
+            return new String(decryptedBytes, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            log.error("Error decrypting data", e);
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
+
+    @Override
+    public String decryptText(String encryptedText, Integer keyVersion) {
+        if (keyVersion != null) {
+            return decrypt(Base64.getDecoder().decode(encryptedText));
+        }
+        if (legacyDecryptCiphers == null) {
+            throw new IllegalStateException("No legacy encryption key configured (app.encryption.key)");
+        }
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            SecretKeySpec keySpec = new SecretKeySpec(
-                getKeyBytes(),
-                0,
-                16,
-                ALGORITHM
-            );
-            cipher.init(Cipher.DECRYPT_MODE, keySpec);
             byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
+            Cipher cipher = legacyDecryptCiphers.borrow();
             byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-            return new String(decryptedBytes);
+            legacyDecryptCiphers.release(cipher);
+            return new String(decryptedBytes, StandardCharsets.UTF_8);
         } catch (Exception e) {
-            log.error("Error decrypting data", e);
+            log.error("Error decrypting legacy data", e);
             throw new RuntimeException("Decryption failed", e);
         }
     }
 
-    private byte[] getKeyBytes() {
+    @Override
+    public int activeKeyVersion() {
+        return activeVersion;
+    }
+
+    /**
+     * AES key of the pre-versioning ECB ciphertexts: the first 16 characters of {@code app.encryption.key},
+     * padded with {@code '0'} if shorter.
+     */
+    public static SecretKey legacyKey(String encryptionKey) {
         String key = encryptionKey;
         if (key.length() < 16) {
             key = String.format("%-16s", key).replace(' ', '0');
         } else if (key.length() > 16) {
             key = key.substring(0, 16);
         }
-        return key.getBytes();
+        return new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), 0, 16, LEGACY_ALGORITHM);
     }
 }
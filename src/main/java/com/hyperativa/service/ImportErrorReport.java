@@ -0,0 +1,146 @@
+package com.hyperativa.service;
+
+import com.hyperativa.dto.ImportErrorCode;
+import com.hyperativa.dto.ImportLineError;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the lines rejected by one import.
+ * <p>
+ * Only the first {@code maxReported} rejections are kept for the response. When a rejection file is
+ * configured every rejection is appended to it as CSV; the file is created on the first rejection, so
+ * clean imports leave nothing on disk. Card numbers are masked before they are stored anywhere.
+ * Not thread-safe: rejections are recorded on the thread reading the file.
+ */
+@Slf4j
+final class ImportErrorReport {
+
+    private final int maxReported;
+    private final Path rejectionFile;
+    private final List<ImportLineError> reported = new ArrayList<>();
+    private final int[] rejectionsByCode = new int[ImportErrorCode.values().length];
+    private BufferedWriter writer;
+    private boolean writeFailed;
+
+    ImportErrorReport(int maxReported, Path rejectionFile) {
+        this.maxReported = Math.max(0, maxReported);
+        this.rejectionFile = rejectionFile;
+    }
+
+    static ImportLineError rejection(int lineNumber, ImportErrorCode code, String cardNumber) {
+        return new ImportLineError(lineNumber, code, maskCardNumber(cardNumber));
+    }
+
+    void reject(int lineNumber, ImportErrorCode code, String cardNumber) {
+        add(rejection(lineNumber, code, cardNumber));
+    }
+
+    void addAll(List<ImportLineError> rejections) {
+        for (ImportLineError rejection : rejections) {
+            add(rejection);
+        }
+    }
+
+    List<ImportLineError> reported() {
+        return reported.isEmpty() ? null : reported;
+    }
+
+    void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Unable to close rejection file {}", rejectionFile.getFileName());
+        }
+        writer = null;
+    }
+
+    /**
+     * Closes and deletes the rejection file, for imports whose cards were rolled back.
+     */
+    void discard() {
+        close();
+        if (rejectionFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(rejectionFile);
+        } catch (IOException e) {
+            log.warn("Unable to delete rejection file {}", rejectionFile.getFileName());
+        }
+    }
+
+    /**
+     * Adds this import's rejections to the {@code card.import.rejections} counter, tagged by error code.
+     */
+    void recordRejections(MeterRegistry meterRegistry) {
+        for (ImportErrorCode code : ImportErrorCode.values()) {
+            if (rejectionsByCode[code.ordinal()] > 0) {
+                meterRegistry.counter("card.import.rejections", "code", code.name())
+                        .increment(rejectionsByCode[code.ordinal()]);
+            }
+        }
+    }
+
+    private void add(ImportLineError rejection) {
+        rejectionsByCode[rejection.getCode().ordinal()]++;
+        if (reported.size() < maxReported) {
+            reported.add(rejection);
+        }
+        write(rejection);
+    }
+
+    private void write(ImportLineError rejection) {
+        if (rejectionFile == null || writeFailed) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                Files.createDirectories(rejectionFile.getParent());
+                writer = Files.newBufferedWriter(rejectionFile);
+                writer.write("line,code,card_number");
+                writer.newLine();
+            }
+            writer.write(rejection.getLineNumber() + "," + rejection.getCode() + ","
+                    + (rejection.getMaskedCardNumber() == null ? "" : rejection.getMaskedCardNumber()));
+            writer.newLine();
+        } catch (IOException e) {
+            // The response still carries the counters and the first rejections
+            log.error("Unable to write rejection file {}; further rejections are not recorded", rejectionFile.getFileName());
+            writeFailed = true;
+            close();
+        }
+    }
+
+    /**
+     * Keeps the first six and last four digits of values of 16 or more characters, the most a PAN may show
+     * once masked, and only the last four of shorter ones, where six more would leave few digits hidden.
+     * Any other character, and every digit of values shorter than eight, becomes {@code *}.
+     */
+    static String maskCardNumber(String cardNumber) {
+        if (cardNumber == null || cardNumber.isEmpty()) {
+            return null;
+        }
+
+        int length = cardNumber.length();
+        int leading = length >= 16 ? 6 : 0;
+        int trailing = length >= 8 ? 4 : 0;
+        StringBuilder masked = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = cardNumber.charAt(i);
+            boolean visible = i < leading || i >= length - trailing;
+            masked.append(visible && c >= '0' && c <= '9' ? c : '*');
+        }
+        return masked.toString();
+    }
+}
@@ -0,0 +1,222 @@
+package com.hyperativa.service;
+
+import com.hyperativa.dto.BatchImportResponse;
+import com.hyperativa.dto.ImportJobResponse;
+import com.hyperativa.exception.ImportJobNotFoundException;
+import com.hyperativa.exception.InvalidFileException;
+import com.hyperativa.model.ImportJob;
+import com.hyperativa.model.ImportJobStatus;
+import com.hyperativa.model.User;
+import com.hyperativa.repository.CardBatchRepository;
+import com.hyperativa.repository.ImportJobRepository;
+import com.hyperativa.service.contract.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs batch imports in the background.
+ * <p>
+ * The upload is spooled to {@code app.batch-import.jobs.spool-dir} and an {@link ImportJob} row is
+ * created before the request returns. Jobs run on the import job executor; live counters are kept in
+ * memory for polling and written to the job row at most every
+ * {@code app.batch-import.jobs.progress-interval-ms}. A worker only runs a job after claiming it with a
+ * compare-and-set on the job row, so a job is never run twice at once. On startup, jobs left pending or
+ * running by a previous process are claimed and resumed: cards a running job had already committed are
+ * removed through its import id and the spooled file is imported again from the start. Jobs submitted
+ * by this process are left to the worker that claims them. Resuming assumes a single application
+ * instance owns the spool directory, which must survive restarts.
+ */
+@Slf4j
+@Service
+public class ImportJobService {
+
+    private static final List<ImportJobStatus> UNFINISHED = List.of(ImportJobStatus.PENDING, ImportJobStatus.RUNNING);
+
+    private final ImportJobRepository importJobRepository;
+    private final BatchFileImportService batchFileImportService;
+    private final CardBatchRepository cardBatchRepository;
+    private final UserService userService;
+    private final ExecutorService importJobExecutor;
+    private final CardLookupCache cardLookupCache;
+    private final Map<String, BatchImportResponse> liveProgress = new ConcurrentHashMap<>();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${app.batch-import.jobs.spool-dir:data/card-imports}")
+    private String spoolDir;
+
+    @Value("${app.batch-import.jobs.progress-interval-ms:1000}")
+    private long progressIntervalMs;
+
+    public ImportJobService(ImportJobRepository importJobRepository, BatchFileImportService batchFileImportService,
+                            CardBatchRepository cardBatchRepository, UserService userService,
+                            ExecutorService importJobExecutor, CardLookupCache cardLookupCache) {
+        this.importJobRepository = importJobRepository;
+        this.batchFileImportService = batchFileImportService;
+        this.cardBatchRepository = cardBatchRepository;
+        this.userService = userService;
+        this.importJobExecutor = importJobExecutor;
+        this.cardLookupCache = cardLookupCache;
+    }
+
+    public ImportJobResponse submit(MultipartFile file, Long userId) {
+        String jobId = UUID.randomUUID().toString();
+        Path spoolPath = spool(file, jobId);
+
+        ImportJob job = new ImportJob();
+        job.setId(jobId);
+        job.setUserId(userId);
+        job.setSpoolPath(spoolPath.toString());
+        importJobRepository.save(job);
+
+        log.info("Import job {} queued for user: {}", jobId, userId);
+        importJobExecutor.execute(() -> run(jobId, 0));
+        return toResponse(job);
+    }
+
+    public ImportJobResponse findJob(String jobId, Long userId) {
+        ImportJob job = importJobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new ImportJobNotFoundException("Import job not found"));
+        return toResponse(job);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<ImportJob> unfinished = importJobRepository.findUnclaimedBy(instanceId, UNFINISHED);
+
+        for (ImportJob job : unfinished) {
+            log.info("Resuming import job {} ({})", job.getId(), job.getStatus());
+            importJobExecutor.execute(() -> run(job.getId(), job.getAttempt()));
+        }
+    }
+
+    private Path spool(MultipartFile file, String jobId) {
+        try {
+            Path directory = Files.createDirectories(Path.of(spoolDir));
+            Path spoolPath = directory.resolve(jobId + ".txt");
+            file.transferTo(spoolPath);
+            return spoolPath;
+        } catch (IOException e) {
+            log.error("Unable to spool import file", e);
+            throw new InvalidFileException("Unable to store uploaded file", e);
+        }
+    }
+
+    // attempt is the value read when the job was queued; another worker claiming it first makes this a no-op
+    private void run(String jobId, int attempt) {
+        Optional<ImportJob> found = importJobRepository.findById(jobId);
+        if (found.isEmpty() || found.get().getAttempt() != attempt || importJobRepository.claim(jobId, attempt,
+                instanceId, ImportJobStatus.RUNNING, UNFINISHED, LocalDateTime.now()) == 0) {
+            return;
+        }
+
+        ImportJob job = found.get();
+        Path spoolPath = Path.of(job.getSpoolPath());
+
+        try {
+            if (job.getStatus() == ImportJobStatus.RUNNING) {
+                int removed = cardBatchRepository.deleteImported(job.getUserId(), jobId);
+                cardLookupCache.invalidateUser(job.getUserId());
+                log.info("Import job {} was interrupted; removed {} cards before restarting", jobId, removed);
+            }
+
+            Optional<User> user = userService.findById(job.getUserId());
+            if (user.isEmpty()) {
+                finish(job, ImportJobStatus.FAILED, new BatchImportResponse(0, 0, 0, "User not found"));
+                return;
+            }
+
+            updateProgress(job, ImportJobStatus.RUNNING, new BatchImportResponse());
+            JobProgressListener listener = new JobProgressListener(job);
+
+            try (InputStream inputStream = Files.newInputStream(spoolPath)) {
+                BatchImportResponse result = batchFileImportService.importCards(inputStream, user.get(), jobId, listener);
+                finish(job, listener.failed ? ImportJobStatus.FAILED : ImportJobStatus.COMPLETED, result);
+            }
+        } catch (Exception e) {
+            log.error("Import job {} failed", jobId, e);
+            finish(job, ImportJobStatus.FAILED, new BatchImportResponse(0, 0, 1, "Import job failed: " + e.getMessage()));
+        } finally {
+            liveProgress.remove(jobId);
+        }
+    }
+
+    private void finish(ImportJob job, ImportJobStatus status, BatchImportResponse result) {
+        updateProgress(job, status, result);
+        log.info("Import job {} finished with status {}", job.getId(), status);
+
+        try {
+            Files.deleteIfExists(Path.of(job.getSpoolPath()));
+        } catch (IOException e) {
+            log.warn("Unable to delete spool file for import job {}", job.getId());
+        }
+    }
+
+    private void updateProgress(ImportJob job, ImportJobStatus status, BatchImportResponse progress) {
+        job.setStatus(status);
+        job.setExpectedRecords(progress.getTotalRecords());
+        job.setProcessedRecords(progress.getSuccessCount() + progress.getErrorCount());
+        job.setSuccessCount(progress.getSuccessCount());
+        job.setErrorCount(progress.getErrorCount());
+        job.setMessage(progress.getMessage());
+        job.setUpdatedAt(LocalDateTime.now());
+
+        importJobRepository.updateProgress(job.getId(), status, job.getExpectedRecords(), job.getProcessedRecords(),
+                job.getSuccessCount(), job.getErrorCount(), job.getMessage(), job.getUpdatedAt());
+    }
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        BatchImportResponse live = job.getStatus() == ImportJobStatus.RUNNING ? liveProgress.get(job.getId()) : null;
+        if (live == null) {
+            return new ImportJobResponse(job.getId(), job.getStatus(), job.getExpectedRecords(),
+                    job.getProcessedRecords(), job.getSuccessCount(), job.getErrorCount(), job.getMessage(),
+                    job.getCreatedAt(), job.getUpdatedAt());
+        }
+
+        return new ImportJobResponse(job.getId(), job.getStatus(), live.getTotalRecords(),
+                live.getSuccessCount() + live.getErrorCount(), live.getSuccessCount(), live.getErrorCount(),
+                job.getMessage(), job.getCreatedAt(), LocalDateTime.now());
+    }
+
+    private class JobProgressListener implements ImportProgressListener {
+
+        private final ImportJob job;
+        private long lastPersisted;
+        private boolean failed;
+
+        JobProgressListener(ImportJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void onProgress(BatchImportResponse progress) {
+            liveProgress.put(job.getId(), progress);
+
+            long now = System.currentTimeMillis();
+            if (now - lastPersisted >= progressIntervalMs) {
+                lastPersisted = now;
+                updateProgress(job, ImportJobStatus.RUNNING, progress);
+            }
+        }
+
+        @Override
+        public void onFailure(String message) {
+            failed = true;
+        }
+    }
+}
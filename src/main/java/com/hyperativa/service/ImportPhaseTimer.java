@@ -0,0 +1,49 @@
+package com.hyperativa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the wall time of one import into phases. The reading thread calls {@link #lap} after each
+ * step, which charges the time since the previous lap to that phase; totals are recorded once per
+ * import on the {@code card.import.phase} timer, tagged with the phase.
+ * <p>
+ * In parallel mode {@link Phase#PERSIST} is the time the reading thread spent handing chunks over or
+ * waiting for them, not the time workers spent writing; {@code card.import.chunk} covers the latter.
+ */
+final class ImportPhaseTimer {
+
+    enum Phase {
+        READ, PARSE, VALIDATE, PERSIST
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+    private long mark = System.nanoTime();
+
+    void lap(Phase phase) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - mark;
+        mark = now;
+    }
+
+    void record(Map<Phase, Timer> timers) {
+        for (Phase phase : Phase.values()) {
+            timers.get(phase).record(nanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+        }
+    }
+
+    static Map<Phase, Timer> registerTimers(MeterRegistry meterRegistry) {
+        Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            timers.put(phase, Timer.builder("card.import.phase")
+                    .description("Time spent per import in each phase")
+                    .tag("phase", phase.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+}
@@ -0,0 +1,18 @@
+package com.hyperativa.service;
+
+import com.hyperativa.dto.BatchImportResponse;
+
+/**
+ * Receives the running counters of a batch import as chunks complete.
+ */
+public interface ImportProgressListener {
+
+    ImportProgressListener NONE = new ImportProgressListener() {
+    };
+
+    default void onProgress(BatchImportResponse progress) {
+    }
+
+    default void onFailure(String message) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.hyperativa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Locates rejection files on disk. Files live under a directory per user, named after the import id,
+ * so a user can only ever resolve the files of their own imports. Files are deleted once they are older
+ * than {@code app.batch-import.errors.rejection-file.retention}.
+ */
+@Slf4j
+@Component
+public class ImportRejectionStore {
+
+    @Value("${app.batch-import.errors.max-reported:100}")
+    private int maxReported;
+
+    @Value("${app.batch-import.errors.rejection-file.enabled:true}")
+    private boolean rejectionFileEnabled;
+
+    @Value("${app.batch-import.errors.rejection-file.dir:${java.io.tmpdir}/card-import-rejections}")
+    private String rejectionDir;
+
+    @Value("${app.batch-import.errors.rejection-file.retention:7d}")
+    private Duration retention;
+
+    ImportErrorReport newReport(Long userId, String importId) {
+        Path rejectionFile = rejectionFileEnabled ? resolve(userId, importId) : null;
+        return new ImportErrorReport(maxReported, rejectionFile);
+    }
+
+    public Optional<Path> find(Long userId, String importId) {
+        if (!rejectionFileEnabled || !isImportId(importId)) {
+            return Optional.empty();
+        }
+        Path rejectionFile = resolve(userId, importId);
+        return Files.isRegularFile(rejectionFile) ? Optional.of(rejectionFile) : Optional.empty();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void deleteExpired() {
+        Path root = Path.of(rejectionDir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(retention);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root, 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            log.warn("Unable to list rejection files in {}", root, e);
+            return;
+        }
+
+        int deleted = 0;
+        for (Path file : files) {
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                log.warn("Unable to delete rejection file {}", file);
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} rejection files older than {}", deleted, retention);
+        }
+    }
+
+    private Path resolve(Long userId, String importId) {
+        return Path.of(rejectionDir, String.valueOf(userId), importId + ".csv");
+    }
+
+    // Import ids are UUIDs; anything else could escape the rejection directory
+    private boolean isImportId(String importId) {
+        try {
+            return UUID.fromString(importId).toString().equals(importId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
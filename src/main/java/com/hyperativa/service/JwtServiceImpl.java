@@ -1,17 +1,40 @@
 package com.hyperativa.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.hyperativa.dto.JwtClaims;
 import com.hyperativa.service.contract.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 
+/**
+ * Issues and verifies HS256 tokens.
+ * <p>
+ * The signing key and parser are built once. Verified claims are cached under the SHA-256 digest of
+ * the token, so a client reusing its bearer token is verified once rather than on every request.
+ * Each entry expires with its token's {@code exp}, and the cache is bounded by
+ * {@code app.jwt.cache.max-size}; a size of 0 turns caching off. Invalid tokens are never cached.
+ */
 @Slf4j
 @Service
 public class JwtServiceImpl implements JwtService {
@@ -22,14 +45,49 @@ public class JwtServiceImpl implements JwtService {
     @Value("${app.jwt.expiration}")
     private long jwtExpiration;
 
+    @Value("${app.jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<String, JwtClaims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser()
+            .verifyWith(signingKey)
+            .build();
+        if (cacheMaxSize <= 0) {
+            return;
+        }
+        verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfter(new Expiry<String, JwtClaims>() {
+                @Override
+                public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                    return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+    }
+
     @Override
     public String generateToken(UserDetails userDetails, Long userId) {
         return createToken(userDetails.getUsername(), userId);
     }
 
     private String createToken(String username, Long userId) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
@@ -38,54 +96,59 @@ public class JwtServiceImpl implements JwtService {
             .claim("userId", userId)
             .issuedAt(now)
             .expiration(expiryDate)
-            .signWith(key, SignatureAlgorithm.HS256)
+            .signWith(signingKey, SignatureAlgorithm.HS256)
             .compact();
     }
 
     @Override
-    public String extractUsername(String token) {
+    public Optional<JwtClaims> parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String digest = verifiedTokens != null ? digest(token) : null;
+        JwtClaims cached = digest != null ? verifiedTokens.getIfPresent(digest) : null;
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return Optional.of(cached);
+        }
+
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-        } catch (Exception e) {
-            log.error("Error extracting username from token", e);
-            return null;
+            Claims payload = parser.parseSignedClaims(token).getPayload();
+            Date expiration = payload.getExpiration();
+            JwtClaims claims = new JwtClaims(payload.getSubject(), payload.get("userId", Long.class),
+                expiration != null ? expiration.toInstant() : Instant.now());
+
+            if (digest != null && expiration != null) {
+                verifiedTokens.put(digest, claims);
+            }
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Invalid token: {}", e.getMessage());
+            return Optional.empty();
         }
     }
 
+    @Override
+    public String extractUsername(String token) {
+        return parseToken(token).map(JwtClaims::username).orElse(null);
+    }
+
     @Override
     public Long extractUserId(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("userId", Long.class);
-        } catch (Exception e) {
-            log.error("Error extracting userId from token", e);
-            return null;
-        }
+        return parseToken(token).map(JwtClaims::userId).orElse(null);
     }
 
     @Override
     public boolean isTokenValid(String token) {
+        return parseToken(token).isPresent();
+    }
+
+    private static String digest(String token) {
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            log.error("Invalid token", e);
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
 }
@@ -0,0 +1,60 @@
+package com.hyperativa.service;
+
+import com.hyperativa.exception.PayloadTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with {@link PayloadTooLargeException} once more than the given number of bytes has been read.
+ * Wrapped around an inflating stream, it caps the decompressed size rather than the bytes received.
+ */
+final class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long remaining;
+
+    SizeLimitedInputStream(InputStream inputStream, long maxBytes) {
+        super(inputStream);
+        this.maxBytes = maxBytes;
+        this.remaining = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long bytes) {
+        remaining -= bytes;
+        if (remaining < 0) {
+            throw new PayloadTooLargeException("Batch file exceeds the maximum size of " + maxBytes + " bytes");
+        }
+    }
+}
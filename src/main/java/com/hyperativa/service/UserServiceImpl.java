@@ -6,11 +6,11 @@ import com.hyperativa.exception.UserAlreadyExistsException;
 import com.hyperativa.exception.UserNotFoundException;
 import com.hyperativa.model.User;
 import com.hyperativa.repository.UserRepository;
+import com.hyperativa.security.PasswordHasher;
 import com.hyperativa.service.contract.JwtService;
 import com.hyperativa.service.contract.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -20,12 +20,12 @@ import java.util.Optional;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public UserServiceImpl(UserRepository userRepository, PasswordHasher passwordHasher, JwtService jwtService) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtService = jwtService;
     }
 
@@ -35,7 +35,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByUsername(authRequest.getUsername())
             .orElseThrow(() -> new UserNotFoundException("User not found"));
 
-        if (!passwordEncoder.matches(authRequest.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(authRequest.getPassword(), user.getPassword())) {
             log.warn("Invalid password for user: {}", authRequest.getUsername());
             throw new BadCredentialsException("Invalid credentials");
         }
@@ -55,7 +55,7 @@ public class UserServiceImpl implements UserService {
 
         User user = new User();
         user.setUsername(username);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHasher.encode(password));
         user.setEnabled(true);
 
         userRepository.save(user);
@@ -66,4 +66,9 @@ public class UserServiceImpl implements UserService {
     public Optional<User> findById(Long userId) {
         return userRepository.findById(userId);
     }
+
+    @Override
+    public User getReference(Long userId) {
+        return userRepository.getReferenceById(userId);
+    }
 }
@@ -0,0 +1,6 @@
+package com.hyperativa.service.contract;
+
+public interface BlindIndexService {
+
+    String hash(String plainText);
+}
@@ -4,13 +4,28 @@ import com.hyperativa.dto.BatchImportResponse;
 import com.hyperativa.dto.CardLookupResponse;
 import com.hyperativa.dto.CardRequest;
 import com.hyperativa.dto.CardResponse;
+import com.hyperativa.dto.ImportJobResponse;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.List;
+
 public interface CardService {
 
     CardResponse create(CardRequest cardRequest, Long userId);
 
     CardLookupResponse lookupCard(Long userId, String cardNumber);
 
+    List<CardLookupResponse> lookupCards(Long userId, List<String> cardNumbers);
+
     BatchImportResponse importCardsFromFile(MultipartFile file, Long userId);
+
+    BatchImportResponse importCardsFromStream(InputStream body, boolean gzip, Long userId);
+
+    ImportJobResponse submitImport(MultipartFile file, Long userId);
+
+    ImportJobResponse getImportJob(String jobId, Long userId);
+
+    Resource getImportRejections(String importId, Long userId);
 }
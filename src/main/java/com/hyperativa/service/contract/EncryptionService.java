@@ -2,7 +2,18 @@ package com.hyperativa.service.contract;
 
 public interface EncryptionService {
 
-    String encrypt(String plainText);
+    /**
+     * Encrypts under the active key; the result records the key version it was written with.
+     */
+    byte[] encrypt(String plainText);
 
-    String decrypt(String encryptedText);
+    String decrypt(byte[] ciphertext);
+
+    /**
+     * Decrypts the Base64 text form stored before cards kept their ciphertext in binary. A {@code null}
+     * key version marks a card written before key versioning.
+     */
+    String decryptText(String encryptedText, Integer keyVersion);
+
+    int activeKeyVersion();
 }
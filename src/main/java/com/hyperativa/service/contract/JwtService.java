@@ -1,11 +1,19 @@
 package com.hyperativa.service.contract;
 
+import com.hyperativa.dto.JwtClaims;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Optional;
+
 public interface JwtService {
 
     String generateToken(UserDetails userDetails, Long userId);
 
+    /**
+     * Verifies the token once and returns its claims, or empty if it is invalid or expired.
+     */
+    Optional<JwtClaims> parseToken(String token);
+
     String extractUsername(String token);
 
     Long extractUserId(String token);
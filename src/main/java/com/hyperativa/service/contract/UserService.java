@@ -13,4 +13,10 @@ public interface UserService {
     void registerUser(String username, String password);
 
     Optional<User> findById(Long userId);
+
+    /**
+     * Returns a reference to the user without loading it, for callers that already know the user
+     * exists, such as requests authenticated by {@code JwtAuthenticationFilter}.
+     */
+    User getReference(Long userId);
 }
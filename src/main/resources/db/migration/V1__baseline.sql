@@ -0,0 +1,31 @@
+-- Schema as created by hibernate.ddl-auto: update before migrations existed, constraint names included,
+-- so new databases match those that are baselined at this version instead of running it
+-- (spring.flyway.baseline-on-migrate).
+--
+-- Later migrations run against populated tables. End every ALTER with ${online-ddl} (in-place, no table
+-- lock) or, for nullable columns added at the end, ${instant-ddl}; on MySQL the statement then fails
+-- instead of silently copying or locking the table.
+
+CREATE TABLE users (
+    enabled BIT NOT NULL,
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    password VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_r43af9ap4edm43mmtq01oddj6 UNIQUE (username)
+) ENGINE=InnoDB;
+
+CREATE TABLE cards (
+    created_at DATETIME(6) NOT NULL,
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    card_id VARCHAR(255) NOT NULL,
+    card_number_encrypted VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_12a2rkq9an62uq7b1mx8551hx UNIQUE (card_id),
+    CONSTRAINT FKcmanafgwbibfijy2o5isfk3d5 FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_card_number ON cards (card_number_encrypted);
+
+CREATE INDEX idx_card_id ON cards (card_id);
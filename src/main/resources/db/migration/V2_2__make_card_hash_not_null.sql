@@ -0,0 +1,2 @@
+-- Every card has its blind index once V2.1 has run
+ALTER TABLE cards MODIFY card_hash VARCHAR(64) NOT NULL${online-ddl};
@@ -0,0 +1,4 @@
+-- HMAC-SHA256 blind index of the card number, used for lookups and duplicate detection
+ALTER TABLE cards ADD COLUMN card_hash VARCHAR(64) NULL${instant-ddl};
+
+ALTER TABLE cards ADD CONSTRAINT uk_card_user_hash UNIQUE (user_id, card_hash)${online-ddl};
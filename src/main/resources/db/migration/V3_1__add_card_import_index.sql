@@ -0,0 +1,3 @@
+-- Removing the cards of a failed import deletes by (user_id, import_id); without this index every batch
+-- scans and locks all of the user's cards
+ALTER TABLE cards ADD INDEX idx_card_user_import (user_id, import_id)${online-ddl};
@@ -0,0 +1,2 @@
+-- Batch import that inserted the card, so a failed import can remove its cards again
+ALTER TABLE cards ADD COLUMN import_id VARCHAR(36) NULL${instant-ddl};
@@ -0,0 +1,4 @@
+-- Jobs are claimed with a compare-and-set on attempt, so a job is only ever run by one worker at a time
+ALTER TABLE import_jobs ADD COLUMN claimed_by VARCHAR(36) NULL${instant-ddl};
+
+ALTER TABLE import_jobs ADD COLUMN attempt INTEGER NOT NULL DEFAULT 0${instant-ddl};
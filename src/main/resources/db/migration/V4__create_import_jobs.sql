@@ -0,0 +1,16 @@
+CREATE TABLE import_jobs (
+    error_count INTEGER NOT NULL,
+    expected_records INTEGER NOT NULL,
+    processed_records INTEGER NOT NULL,
+    success_count INTEGER NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    user_id BIGINT NOT NULL,
+    id VARCHAR(36) NOT NULL,
+    message VARCHAR(1000),
+    spool_path VARCHAR(255) NOT NULL,
+    status ENUM ('PENDING','RUNNING','COMPLETED','FAILED') NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_import_job_status ON import_jobs (status);
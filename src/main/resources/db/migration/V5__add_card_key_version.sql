@@ -0,0 +1,14 @@
+-- Key version of the AES-GCM ciphertext; NULL for cards still encrypted with the pre-versioning key
+ALTER TABLE cards ADD COLUMN key_version INTEGER NULL${instant-ddl};
+
+CREATE TABLE card_encryption_checkpoints (
+    key_version INTEGER NOT NULL,
+    completed_at DATETIME(6),
+    failed_count BIGINT NOT NULL,
+    last_card_id BIGINT NOT NULL,
+    re_encrypted_count BIGINT NOT NULL,
+    started_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    target VARCHAR(32) NOT NULL,
+    PRIMARY KEY (target)
+) ENGINE=InnoDB;
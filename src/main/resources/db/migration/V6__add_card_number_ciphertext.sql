@@ -0,0 +1,4 @@
+-- Binary ciphertext; the Base64 text column is only kept for cards the re-encryption job has not moved yet
+ALTER TABLE cards ADD COLUMN card_number_ciphertext VARBINARY(48) NULL${instant-ddl};
+
+ALTER TABLE cards MODIFY card_number_encrypted VARCHAR(255) NULL${online-ddl};
@@ -0,0 +1,4 @@
+-- Lookups go through uk_card_user_hash and card_id has its own unique key
+ALTER TABLE cards DROP INDEX idx_card_number${online-ddl};
+
+ALTER TABLE cards DROP INDEX idx_card_id${online-ddl};